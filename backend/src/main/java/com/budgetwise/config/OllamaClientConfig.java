@@ -0,0 +1,56 @@
+package com.budgetwise.config;
+
+import io.netty.channel.ChannelOption;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.client.reactive.ReactorClientHttpConnector;
+import org.springframework.web.reactive.function.client.WebClient;
+import reactor.netty.http.client.HttpClient;
+import reactor.netty.resources.ConnectionProvider;
+
+import java.time.Duration;
+
+/**
+ * WebClient for Ollama on a dedicated, bounded connection pool. Connections are kept alive and reused
+ * between generations, idle ones are evicted in the background, and connect/response timeouts are enforced
+ * by Netty so a stalled model cannot hold a connection forever.
+ */
+@Configuration
+public class OllamaClientConfig {
+
+    @Bean(destroyMethod = "dispose")
+    public ConnectionProvider ollamaConnectionProvider(
+            @Value("${ollama.http.max-connections:10}") int maxConnections,
+            @Value("${ollama.http.pending-acquire-timeout-ms:30000}") long pendingAcquireTimeoutMillis,
+            @Value("${ollama.http.max-idle-ms:60000}") long maxIdleMillis,
+            @Value("${ollama.http.max-life-ms:600000}") long maxLifeMillis) {
+        return ConnectionProvider.builder("ollama")
+                .maxConnections(maxConnections)
+                .pendingAcquireTimeout(Duration.ofMillis(pendingAcquireTimeoutMillis))
+                .maxIdleTime(Duration.ofMillis(maxIdleMillis))
+                .maxLifeTime(Duration.ofMillis(maxLifeMillis))
+                .evictInBackground(Duration.ofMillis(maxIdleMillis))
+                .metrics(true)
+                .build();
+    }
+
+    @Bean
+    public WebClient ollamaWebClient(ConnectionProvider ollamaConnectionProvider,
+                                     @Value("${ollama.base-url}") String baseUrl,
+                                     @Value("${ollama.http.connect-timeout-ms:5000}") int connectTimeoutMillis,
+                                     @Value("${ollama.http.read-timeout-ms:${ollama.timeout:120000}}") long readTimeoutMillis) {
+        // The response timeout is the longest silence allowed between reads of a response; a streamed generation
+        // keeps resetting it. It only applies while a request is in flight, not to idle pooled connections,
+        // and a request can override it (the warm-up does, as loading a model sends nothing until it is done)
+        HttpClient httpClient = HttpClient.create(ollamaConnectionProvider)
+                .option(ChannelOption.CONNECT_TIMEOUT_MILLIS, connectTimeoutMillis)
+                .option(ChannelOption.SO_KEEPALIVE, true)
+                .keepAlive(true)
+                .responseTimeout(Duration.ofMillis(readTimeoutMillis));
+        return WebClient.builder()
+                .baseUrl(baseUrl)
+                .clientConnector(new ReactorClientHttpConnector(httpClient))
+                .build();
+    }
+}
@@ -2,17 +2,25 @@ package com.budgetwise.controller;
 
 import com.budgetwise.dto.AIInsightRequest;
 import com.budgetwise.dto.AIInsightResponse;
-import com.budgetwise.dto.TransactionResponse;
-import com.budgetwise.model.User;
+import com.budgetwise.dto.FinancialSnapshot;
+import com.budgetwise.model.DigestKind;
+import com.budgetwise.security.CurrentUserProvider;
+import com.budgetwise.service.AIInsightCache;
+import com.budgetwise.service.AiDigestService;
+import com.budgetwise.service.FinancialContextBuilder;
+import com.budgetwise.service.LlmGateway;
 import com.budgetwise.service.OllamaService;
-import com.budgetwise.service.TransactionService;
 import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
-import org.springframework.security.core.annotation.AuthenticationPrincipal;
+import org.springframework.http.codec.ServerSentEvent;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.async.DeferredResult;
+import reactor.core.publisher.Flux;
 
-import java.math.BigDecimal;
-import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
 
 @RestController
 @RequestMapping("/api/ai")
@@ -21,93 +29,76 @@ import java.util.List;
 public class AIController {
 
     private final OllamaService ollamaService;
-    private final TransactionService transactionService;
+    private final FinancialContextBuilder contextBuilder;
+    private final CurrentUserProvider currentUserProvider;
+    private final AIInsightCache insightCache;
+    private final LlmGateway llmGateway;
+    private final AiDigestService digestService;
+
+    // Covers the queue wait as well as the model call; past it the client gets 503 + Retry-After
+    @Value("${ai.insights.request-timeout-ms:300000}")
+    private long insightTimeoutMillis;
 
     @PostMapping("/insights")
-    public ResponseEntity<AIInsightResponse> getAIInsights(
-            @RequestBody AIInsightRequest request,
-            @AuthenticationPrincipal User user) {
-        
-        // Get user's financial context
-        List<TransactionResponse> transactionResponses = transactionService.getUserTransactions();
-        String context = buildFinancialContext(transactionResponses);
-        
-        request.setContext(context);
-        AIInsightResponse response = ollamaService.generateInsight(request);
-        
-        return ResponseEntity.ok(response);
+    public DeferredResult<ResponseEntity<AIInsightResponse>> getAIInsights(@RequestBody AIInsightRequest request) {
+        return deferred(cachedInsight(request.getQuery()));
     }
 
+    // Relays tokens as they are generated; the servlet thread is released while the model runs
+    @PostMapping(value = "/insights/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public Flux<ServerSentEvent<String>> streamAIInsights(@RequestBody AIInsightRequest request) {
+        Long userId = currentUserProvider.getCurrentUserId();
+        FinancialSnapshot snapshot = contextBuilder.snapshot(userId);
+        if (ollamaService.hasPredefinedResponse(request.getQuery(), snapshot)) {
+            return ollamaService.streamInsight(request.getQuery(), snapshot);
+        }
+        return llmGateway.stream(userId, () -> ollamaService.streamInsight(request.getQuery(), snapshot));
+    }
+
+    // Served from the precomputed digest; "stale" is set when transactions changed since it was generated,
+    // or when a rule-based answer stands in while the first digest is generated
     @GetMapping("/spending-analysis")
-    public ResponseEntity<AIInsightResponse> getSpendingAnalysis(@AuthenticationPrincipal User user) {
-        List<TransactionResponse> transactionResponses = transactionService.getUserTransactions();
-        String context = buildFinancialContext(transactionResponses);
-        
-        AIInsightRequest request = AIInsightRequest.builder()
-                .query("Analyze my spending patterns and provide insights")
-                .context(context)
-                .build();
-                
-        AIInsightResponse response = ollamaService.generateInsight(request);
-        return ResponseEntity.ok(response);
+    public ResponseEntity<AIInsightResponse> getSpendingAnalysis() {
+        return ResponseEntity.ok(digestService.getDigest(currentUserProvider.getCurrentUserId(), DigestKind.SPENDING_ANALYSIS));
     }
 
     @GetMapping("/budget-recommendations")
-    public ResponseEntity<AIInsightResponse> getBudgetRecommendations(@AuthenticationPrincipal User user) {
-        List<TransactionResponse> transactionResponses = transactionService.getUserTransactions();
-        String context = buildFinancialContext(transactionResponses);
-        
-        AIInsightRequest request = AIInsightRequest.builder()
-                .query("Provide budget recommendations based on my spending")
-                .context(context)
-                .build();
-                
-        AIInsightResponse response = ollamaService.generateInsight(request);
-        return ResponseEntity.ok(response);
+    public ResponseEntity<AIInsightResponse> getBudgetRecommendations() {
+        return ResponseEntity.ok(digestService.getDigest(currentUserProvider.getCurrentUserId(), DigestKind.BUDGET_RECOMMENDATIONS));
     }
 
-    private String buildFinancialContext(List<TransactionResponse> transactions) {
-        if (transactions.isEmpty()) {
-            return "No transaction data available";
-        }
-
-        StringBuilder context = new StringBuilder();
-        context.append("FINANCIAL SUMMARY:\n");
-        
-        BigDecimal totalIncome = BigDecimal.ZERO;
-        BigDecimal totalExpenses = BigDecimal.ZERO;
-        
-        for (TransactionResponse transaction : transactions) {
-            if ("INCOME".equalsIgnoreCase(transaction.getType())) {
-                totalIncome = totalIncome.add(transaction.getAmount());
-            } else if ("EXPENSE".equalsIgnoreCase(transaction.getType())) {
-                totalExpenses = totalExpenses.add(transaction.getAmount());
+    // A timed-out generation keeps running and lands in the insight cache, so the retry is usually a hit
+    private DeferredResult<ResponseEntity<AIInsightResponse>> deferred(CompletableFuture<AIInsightResponse> future) {
+        DeferredResult<ResponseEntity<AIInsightResponse>> result = new DeferredResult<>(insightTimeoutMillis);
+        future.whenComplete((response, error) -> {
+            if (error != null) {
+                result.setErrorResult(error instanceof CompletionException && error.getCause() != null ? error.getCause() : error);
+            } else {
+                result.setResult(ResponseEntity.ok(response));
             }
+        });
+        return result;
+    }
+
+    // Cache hits and rule-based answers return at once; only model calls wait for a gateway slot
+    private CompletableFuture<AIInsightResponse> cachedInsight(String query) {
+        Long userId = currentUserProvider.getCurrentUserId();
+        String key = insightCache.key(userId, ollamaService.getModel(), query);
+        AIInsightResponse cached = insightCache.getIfPresent(key);
+        if (cached != null) {
+            return CompletableFuture.completedFuture(cached);
         }
-        
-        BigDecimal netAmount = totalIncome.subtract(totalExpenses);
-        
-        context.append(String.format("Total Income: ₹%s\n", totalIncome));
-        context.append(String.format("Total Expenses: ₹%s\n", totalExpenses));
-        context.append(String.format("Net Balance: ₹%s\n", netAmount));
-        
-        if (netAmount.compareTo(BigDecimal.ZERO) > 0) {
-            context.append("Status: SURPLUS (Income > Expenses)\n");
-        } else if (netAmount.compareTo(BigDecimal.ZERO) < 0) {
-            context.append("Status: DEFICIT (Expenses > Income)\n");
-        } else {
-            context.append("Status: BALANCED\n");
-        }
-        
-        context.append("\nTransaction Details:\n");
-        for (TransactionResponse transaction : transactions) {
-            context.append(String.format("- %s: ₹%s (%s - %s)\n", 
-                transaction.getType(), 
-                transaction.getAmount(), 
-                transaction.getCategory(),
-                transaction.getDescription()));
+
+        FinancialSnapshot snapshot = contextBuilder.snapshot(userId);
+        if (ollamaService.hasPredefinedResponse(query, snapshot)) {
+            AIInsightResponse response = ollamaService.generateInsight(query, snapshot);
+            insightCache.put(key, response);
+            return CompletableFuture.completedFuture(response);
         }
-        
-        return context.toString();
+        return llmGateway.submit(userId, key, () -> {
+            AIInsightResponse response = ollamaService.generateInsight(query, snapshot);
+            insightCache.put(key, response);
+            return response;
+        });
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,47 @@
+package com.budgetwise.controller;
+
+import com.budgetwise.dto.SpendingSeriesResponse;
+import com.budgetwise.service.AnalyticsService;
+import lombok.RequiredArgsConstructor;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.time.LocalDate;
+import java.util.Map;
+
+@RestController
+@RequestMapping("/api/analytics")
+@RequiredArgsConstructor
+@CrossOrigin(origins = {"http://localhost:3000", "http://localhost:3001"})
+public class AnalyticsController {
+
+    private final AnalyticsService analyticsService;
+
+    @GetMapping("/categories")
+    public ResponseEntity<Map<String, Object>> getCategorySpending(
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate start,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate end,
+            @RequestParam(required = false) Integer limit) {
+        return ResponseEntity.ok(analyticsService.getCategorySpendingData(start, end, limit));
+    }
+
+    @GetMapping("/categories/{category}")
+    public ResponseEntity<Map<String, Object>> getSubcategorySpending(
+            @PathVariable String category,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate start,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate end,
+            @RequestParam(required = false) Integer limit) {
+        return ResponseEntity.ok(analyticsService.getSubcategorySpendingData(category, start, end, limit));
+    }
+
+    @GetMapping("/series")
+    public ResponseEntity<SpendingSeriesResponse> getSpendingSeries(
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate start,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate end,
+            @RequestParam(defaultValue = "month") String granularity,
+            @RequestParam(defaultValue = "true") boolean fillGaps,
+            @RequestParam(defaultValue = "false") boolean runningBalance) {
+        return ResponseEntity.ok(analyticsService.getSpendingSeries(start, end, granularity, fillGaps, runningBalance));
+    }
+}
@@ -2,10 +2,15 @@ package com.budgetwise.controller;
 
 import com.budgetwise.dto.BudgetRequest;
 import com.budgetwise.dto.BudgetResponse;
+import com.budgetwise.dto.BudgetStatusResponse;
+import com.budgetwise.security.CurrentUserProvider;
+import com.budgetwise.service.BudgetAlertService;
 import com.budgetwise.service.BudgetService;
 import lombok.RequiredArgsConstructor;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
 import java.util.List;
 
@@ -14,6 +19,8 @@ import java.util.List;
 @RequiredArgsConstructor
 public class BudgetController {
     private final BudgetService budgetService;
+    private final BudgetAlertService budgetAlertService;
+    private final CurrentUserProvider currentUserProvider;
 
     @PostMapping
     public ResponseEntity<BudgetResponse> createBudget(@RequestBody BudgetRequest request) {
@@ -30,6 +37,16 @@ public class BudgetController {
         return ResponseEntity.ok(budgetService.getCurrentBudgets());
     }
 
+    @GetMapping("/status")
+    public ResponseEntity<List<BudgetStatusResponse>> getBudgetStatus() {
+        return ResponseEntity.ok(budgetService.getBudgetStatus());
+    }
+
+    @GetMapping(value = "/alerts/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter streamBudgetAlerts() {
+        return budgetAlertService.subscribe(currentUserProvider.getCurrentUserId());
+    }
+
     @PutMapping("/{id}")
     public ResponseEntity<BudgetResponse> updateBudget(
             @PathVariable Long id,
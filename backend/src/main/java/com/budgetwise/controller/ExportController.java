@@ -1,16 +1,27 @@
 package com.budgetwise.controller;
 
+import com.budgetwise.model.User;
+import com.budgetwise.security.CurrentUserProvider;
+import com.budgetwise.dto.ExportJobResponse;
+import com.budgetwise.service.ExportJobService;
 import com.budgetwise.service.ExportService;
 import com.budgetwise.service.SimpleExportService;
 import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
 import org.springframework.http.HttpHeaders;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
+import org.springframework.core.io.Resource;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.nio.charset.StandardCharsets;
 import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
+import java.util.Locale;
 
+@Slf4j
 @RestController
 @RequestMapping("/api/export")
 @RequiredArgsConstructor
@@ -19,42 +30,52 @@ public class ExportController {
 
     private final ExportService exportService;
     private final SimpleExportService simpleExportService;
+    private final CurrentUserProvider currentUserProvider;
+    private final ExportJobService exportJobService;
 
+    // Streamed: the PDF is written to the response as it is generated, never held in memory.
+    // Runs as an async request bounded by spring.mvc.async.request-timeout
     @GetMapping("/pdf")
-    public ResponseEntity<byte[]> exportToPdf(@RequestParam(defaultValue = "all") String sections) {
-        try {
-            System.out.println("PDF export requested for sections: " + sections);
-            byte[] pdfData = exportService.exportToPdf(sections);
-            
-            String filename = "financial-report-" + 
-                LocalDateTime.now().format(DateTimeFormatter.ofPattern("dd-MM-yyyy")) + ".pdf";
-            
-            return ResponseEntity.ok()
-                    .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=" + filename)
-                    .contentType(MediaType.APPLICATION_PDF)
-                    .body(pdfData);
-        } catch (Exception e) {
-            System.err.println("PDF export error: " + e.getMessage());
-            e.printStackTrace();
-            return ResponseEntity.status(500).body(null);
-        }
+    public ResponseEntity<StreamingResponseBody> exportToPdf(@RequestParam(defaultValue = "all") String sections) {
+        log.info("PDF export requested for sections: {}", sections);
+        // Resolve the user here; the body is written on an async thread without the request's security context
+        User user = currentUserProvider.getCurrentUser();
+        Long userId = user.getId();
+        String username = user.getUsername();
+        
+        String filename = "financial-report-" + 
+            LocalDateTime.now().format(DateTimeFormatter.ofPattern("dd-MM-yyyy")) + ".pdf";
+        
+        StreamingResponseBody body = out -> exportService.writePdf(userId, username, sections, out);
+        return ResponseEntity.ok()
+                .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=" + filename)
+                .contentType(MediaType.APPLICATION_PDF)
+                .body(body);
     }
 
+    // Streamed row by row; gzip-encoded when the client accepts it. Bounded by spring.mvc.async.request-timeout,
+    // like the PDF; a stream that fails is left without its gzip trailer so clients see the error
     @GetMapping("/csv")
-    public ResponseEntity<String> exportToCsv(@RequestParam(defaultValue = "all") String sections) {
-        try {
-            String csvData = simpleExportService.exportToCsv(sections);
-            
-            String filename = "financial-data-" + 
-                LocalDateTime.now().format(DateTimeFormatter.ofPattern("dd-MM-yyyy")) + ".csv";
-            
-            return ResponseEntity.ok()
-                    .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=" + filename)
-                    .contentType(MediaType.parseMediaType("text/csv"))
-                    .body(csvData);
-        } catch (Exception e) {
-            return ResponseEntity.internalServerError().build();
+    public ResponseEntity<StreamingResponseBody> exportToCsv(
+            @RequestParam(defaultValue = "all") String sections,
+            @RequestHeader(value = HttpHeaders.ACCEPT_ENCODING, required = false) String acceptEncoding) {
+        User user = currentUserProvider.getCurrentUser();
+        Long userId = user.getId();
+        String username = user.getUsername();
+        boolean gzip = acceptEncoding != null && acceptEncoding.toLowerCase(Locale.ROOT).contains("gzip");
+
+        String filename = "financial-data-" + 
+            LocalDateTime.now().format(DateTimeFormatter.ofPattern("dd-MM-yyyy")) + ".csv";
+
+        StreamingResponseBody body = out -> simpleExportService.writeCsv(userId, username, sections, out, gzip);
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok()
+                .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=" + filename)
+                .header(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING)
+                .contentType(new MediaType("text", "csv", StandardCharsets.UTF_8));
+        if (gzip) {
+            response.header(HttpHeaders.CONTENT_ENCODING, "gzip");
         }
+        return response.body(body);
     }
 
     @GetMapping("/html")
@@ -73,4 +94,34 @@ public class ExportController {
             return ResponseEntity.internalServerError().build();
         }
     }
-}
\ No newline at end of file
+
+    // Background export: returns the job at once; poll it or subscribe to its events, then download the file
+    @PostMapping("/jobs")
+    public ResponseEntity<ExportJobResponse> submitExportJob(@RequestParam String format,
+                                                             @RequestParam(defaultValue = "all") String sections) {
+        User user = currentUserProvider.getCurrentUser();
+        return ResponseEntity.accepted()
+                .body(exportJobService.submit(user.getId(), user.getUsername(), format, sections));
+    }
+
+    @GetMapping("/jobs/{id}")
+    public ResponseEntity<ExportJobResponse> getExportJob(@PathVariable String id) {
+        return ResponseEntity.ok(exportJobService.getJob(currentUserProvider.getCurrentUserId(), id));
+    }
+
+    @GetMapping(value = "/jobs/{id}/events", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter streamExportJob(@PathVariable String id) {
+        return exportJobService.subscribe(currentUserProvider.getCurrentUserId(), id);
+    }
+
+    // Served as a file resource: streamed from disk in chunks, with Range support for resumed downloads
+    @GetMapping("/jobs/{id}/download")
+    public ResponseEntity<Resource> downloadExport(@PathVariable String id) {
+        ExportJobService.ExportDownload download = exportJobService.download(currentUserProvider.getCurrentUserId(), id);
+        return ResponseEntity.ok()
+                .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=" + download.filename())
+                .contentType(MediaType.parseMediaType(download.contentType()))
+                .contentLength(download.sizeBytes())
+                .body(download.resource());
+    }
+}
@@ -1,6 +1,7 @@
 package com.budgetwise.controller;
 
 import com.budgetwise.service.DbHealthService;
+import com.budgetwise.service.OllamaWarmupService;
 import lombok.RequiredArgsConstructor;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
@@ -15,6 +16,7 @@ import java.util.Map;
 @RequiredArgsConstructor
 public class HealthController {
     private final DbHealthService dbHealthService;
+    private final OllamaWarmupService ollamaWarmupService;
 
     @GetMapping("/db")
     public ResponseEntity<Map<String, Object>> checkDb() {
@@ -26,4 +28,16 @@ public class HealthController {
                     .body(Map.of("status", "DOWN", "error", err));
         }
     }
+
+    // Ready once the AI model is loaded in Ollama, so the first insight request is not a cold start
+    @GetMapping("/ollama")
+    public ResponseEntity<Map<String, Object>> checkOllama() {
+        String err = ollamaWarmupService.checkReadiness();
+        if (err == null) {
+            return ResponseEntity.ok(Map.of("status", "UP"));
+        } else {
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                    .body(Map.of("status", "DOWN", "error", err));
+        }
+    }
 }
@@ -1,13 +1,21 @@
 package com.budgetwise.controller;
 
+import com.budgetwise.dto.BulkImportResponse;
+import com.budgetwise.dto.TransactionFilterRequest;
+import com.budgetwise.dto.TransactionPageResponse;
 import com.budgetwise.dto.TransactionRequest;
 import com.budgetwise.dto.TransactionResponse;
+import com.budgetwise.service.TransactionImportService;
 import com.budgetwise.service.TransactionService;
+import jakarta.servlet.http.HttpServletResponse;
 import lombok.RequiredArgsConstructor;
 import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
+import java.io.IOException;
+import java.io.Reader;
 import java.time.LocalDateTime;
 import java.util.List;
 
@@ -17,18 +25,44 @@ import java.util.List;
 @CrossOrigin(origins = {"http://localhost:3000", "http://localhost:3001"})
 public class TransactionController {
 
+    private static final String NDJSON = "application/x-ndjson";
+
     private final TransactionService transactionService;
+    private final TransactionImportService transactionImportService;
 
     @PostMapping
     public ResponseEntity<TransactionResponse> createTransaction(@RequestBody TransactionRequest request) {
         return ResponseEntity.ok(transactionService.createTransaction(request));
     }
 
+    @PostMapping(value = "/bulk", consumes = MediaType.APPLICATION_JSON_VALUE)
+    public ResponseEntity<BulkImportResponse> importTransactions(@RequestBody List<TransactionRequest> requests) {
+        return ResponseEntity.ok(transactionImportService.importTransactions(requests));
+    }
+
+    @PostMapping(value = "/bulk", consumes = "text/csv")
+    public ResponseEntity<BulkImportResponse> importTransactionsCsv(Reader csv) {
+        return ResponseEntity.ok(transactionImportService.importCsv(csv));
+    }
+
     @GetMapping
     public ResponseEntity<List<TransactionResponse>> getAllTransactions() {
         return ResponseEntity.ok(transactionService.getUserTransactions());
     }
 
+    // Full dump for sync clients: one JSON object per line, written as rows are read
+    @GetMapping(value = "/stream", produces = NDJSON)
+    public void streamTransactions(HttpServletResponse response) throws IOException {
+        response.setContentType(NDJSON);
+        response.setCharacterEncoding("UTF-8");
+        transactionService.streamUserTransactions(response.getOutputStream());
+    }
+
+    @GetMapping("/page")
+    public ResponseEntity<TransactionPageResponse> getTransactionPage(TransactionFilterRequest filter) {
+        return ResponseEntity.ok(transactionService.getTransactionPage(filter));
+    }
+
     @GetMapping("/date-range")
     public ResponseEntity<List<TransactionResponse>> getTransactionsByDateRange(
             @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime start,
@@ -36,6 +70,12 @@ public class TransactionController {
         return ResponseEntity.ok(transactionService.getTransactionsByDateRange(start, end));
     }
 
+    @PostMapping("/summary/rebuild")
+    public ResponseEntity<Void> rebuildSummary() {
+        transactionService.rebuildSummary();
+        return ResponseEntity.noContent().build();
+    }
+
     @PutMapping("/{id}")
     public ResponseEntity<TransactionResponse> updateTransaction(
             @PathVariable Long id,
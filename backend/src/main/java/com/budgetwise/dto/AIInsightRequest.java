@@ -11,5 +11,4 @@ import lombok.NoArgsConstructor;
 @AllArgsConstructor
 public class AIInsightRequest {
     private String query;
-    private String context;
-}
\ No newline at end of file
+}
@@ -5,6 +5,8 @@ import lombok.Builder;
 import lombok.Data;
 import lombok.NoArgsConstructor;
 
+import java.time.LocalDateTime;
+
 @Data
 @Builder
 @NoArgsConstructor
@@ -13,4 +15,6 @@ public class AIInsightResponse {
     private String insight;
     private String category;
     private String recommendation;
+    private LocalDateTime generatedAt; // set for precomputed digests
+    private Boolean stale; // digest was generated before the latest transaction changes
 }
\ No newline at end of file
@@ -0,0 +1,24 @@
+package com.budgetwise.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+@Data
+@Builder
+@AllArgsConstructor
+@NoArgsConstructor
+public class BudgetAlert {
+    private Long budgetId;
+    private String category;
+    private int threshold; // percent crossed: 80 or 100
+    private BigDecimal amount;
+    private BigDecimal spent;
+    private BigDecimal percentUsed;
+    private String status;
+    private LocalDateTime triggeredAt;
+}
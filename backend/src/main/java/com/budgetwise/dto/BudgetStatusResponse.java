@@ -0,0 +1,26 @@
+package com.budgetwise.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+@Data
+@Builder
+@AllArgsConstructor
+@NoArgsConstructor
+public class BudgetStatusResponse {
+    private Long id;
+    private String category;
+    private BigDecimal amount;
+    private LocalDate startDate;
+    private LocalDate endDate;
+    private BigDecimal spent;
+    private BigDecimal remaining; // negative once the budget is overrun
+    private BigDecimal percentUsed;
+    private BigDecimal projectedSpend; // spent extrapolated linearly to the end of the period
+    private String status; // ON_TRACK, WARNING (80%+) or EXCEEDED (100%+)
+}
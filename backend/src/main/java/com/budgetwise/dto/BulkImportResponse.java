@@ -0,0 +1,27 @@
+package com.budgetwise.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class BulkImportResponse {
+    private int received;
+    private int imported;
+    private int failed;
+    private List<RowError> errors; // capped, see TransactionImportService
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class RowError {
+        private int row; // 1-based, data rows only (CSV header excluded)
+        private String message;
+    }
+}
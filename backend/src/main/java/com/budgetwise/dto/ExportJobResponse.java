@@ -0,0 +1,27 @@
+package com.budgetwise.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class ExportJobResponse {
+    private String id;
+    private String format;
+    private String sections;
+    private String status; // QUEUED, RUNNING, COMPLETED or FAILED
+    private int progress; // percent of sections written
+    private String filename;
+    private Long sizeBytes;
+    private String error;
+    private String downloadUrl; // set once COMPLETED
+    private LocalDateTime createdAt;
+    private LocalDateTime completedAt;
+    private LocalDateTime expiresAt;
+}
@@ -0,0 +1,28 @@
+package com.budgetwise.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Everything an export renders except the transaction rows, loaded once per request.
+ * Parts not needed by the requested sections are left empty.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class ExportSnapshot {
+    private Long userId;
+    private String username;
+    private LocalDateTime generatedAt;
+    private List<String> sections; // requested sections in order, "all" expanded
+    private SummaryTotals totals;
+    private List<CategoryTotal> expenseCategories;
+    private List<BudgetStatusResponse> budgets;
+    private List<GoalResponse> goals;
+}
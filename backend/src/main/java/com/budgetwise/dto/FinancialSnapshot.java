@@ -0,0 +1,47 @@
+package com.budgetwise.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.List;
+
+/**
+ * Typed financial facts of one user, computed once per request from repository aggregates and
+ * shared by the rule-based AI answers and the LLM prompt renderer.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class FinancialSnapshot {
+    private Long userId;
+    private BigDecimal totalIncome;
+    private BigDecimal totalExpenses;
+    private long transactionCount;
+    private List<CategoryTotal> expenseCategories; // largest first
+    private List<MonthlyTotal> monthlyTrend; // oldest first
+    private List<TransactionResponse> largestExpenses;
+    private List<TransactionResponse> recentTransactions;
+
+    public BigDecimal getNetBalance() {
+        return totalIncome.subtract(totalExpenses);
+    }
+
+    public boolean isEmpty() {
+        return transactionCount == 0;
+    }
+
+    @Data
+    @Builder
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class MonthlyTotal {
+        private LocalDate month;
+        private BigDecimal income;
+        private BigDecimal expenses;
+    }
+}
@@ -0,0 +1,17 @@
+package com.budgetwise.dto;
+
+public enum QueryIntent {
+    GREETING,
+    OFF_TOPIC,
+    CATEGORY_SPENDING,
+    OVERSPENDING,
+    SAVING_PLAN,
+    INVESTMENT,
+    BUDGET_PLAN,
+    GENERAL;
+
+    // Every intent except GENERAL has a rule-based answer and never reaches the model
+    public boolean requiresModel() {
+        return this == GENERAL;
+    }
+}
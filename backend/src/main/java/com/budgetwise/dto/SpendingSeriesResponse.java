@@ -0,0 +1,34 @@
+package com.budgetwise.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.List;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class SpendingSeriesResponse {
+    private String granularity;
+    private LocalDate start;
+    private LocalDate end;
+    private BigDecimal openingBalance; // net of everything before start, null unless a running balance was requested
+    private List<Point> points;
+
+    @Data
+    @Builder
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class Point {
+        private LocalDate period; // first day of the bucket
+        private BigDecimal income;
+        private BigDecimal expense;
+        private BigDecimal net;
+        private BigDecimal balance;
+    }
+}
@@ -0,0 +1,22 @@
+package com.budgetwise.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class SummaryTotals {
+    private BigDecimal totalIncome;
+    private BigDecimal totalExpenses;
+    private long transactionCount;
+
+    public BigDecimal getNetBalance() {
+        return totalIncome.subtract(totalExpenses);
+    }
+}
@@ -0,0 +1,38 @@
+package com.budgetwise.event;
+
+import com.budgetwise.model.Transaction;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Published when transactions are created, updated or deleted; a bulk import publishes one event per batch.
+ * In each change {@code before} is null for a create and {@code after} is null for a delete.
+ * {@code version} is the user's data version the change committed as (see {@code UserDataVersionService}).
+ * Listeners typically react after the surrounding commit.
+ */
+public record TransactionChangedEvent(Long userId, long version, List<Change> changes) {
+
+    public record Snapshot(String category, String type, BigDecimal amount, LocalDateTime date) {
+
+        public static Snapshot of(Transaction transaction) {
+            return new Snapshot(transaction.getCategory(), transaction.getType(), transaction.getAmount(), transaction.getDate());
+        }
+    }
+
+    public record Change(Snapshot before, Snapshot after) {
+    }
+
+    public static TransactionChangedEvent created(Long userId, long version, Snapshot after) {
+        return new TransactionChangedEvent(userId, version, List.of(new Change(null, after)));
+    }
+
+    public static TransactionChangedEvent updated(Long userId, long version, Snapshot before, Snapshot after) {
+        return new TransactionChangedEvent(userId, version, List.of(new Change(before, after)));
+    }
+
+    public static TransactionChangedEvent deleted(Long userId, long version, Snapshot before) {
+        return new TransactionChangedEvent(userId, version, List.of(new Change(before, null)));
+    }
+}
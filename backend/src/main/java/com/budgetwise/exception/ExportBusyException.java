@@ -0,0 +1,18 @@
+package com.budgetwise.exception;
+
+/**
+ * Thrown when the export job queue or the user's share of it is full; mapped to 429 with a Retry-After header.
+ */
+public class ExportBusyException extends RuntimeException {
+
+    private final long retryAfterSeconds;
+
+    public ExportBusyException(String message, long retryAfterSeconds) {
+        super(message);
+        this.retryAfterSeconds = retryAfterSeconds;
+    }
+
+    public long getRetryAfterSeconds() {
+        return retryAfterSeconds;
+    }
+}
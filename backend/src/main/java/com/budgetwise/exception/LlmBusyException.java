@@ -0,0 +1,18 @@
+package com.budgetwise.exception;
+
+/**
+ * Thrown when the LLM admission queue is full; mapped to 429 with a Retry-After header.
+ */
+public class LlmBusyException extends RuntimeException {
+
+    private final long retryAfterSeconds;
+
+    public LlmBusyException(String message, long retryAfterSeconds) {
+        super(message);
+        this.retryAfterSeconds = retryAfterSeconds;
+    }
+
+    public long getRetryAfterSeconds() {
+        return retryAfterSeconds;
+    }
+}
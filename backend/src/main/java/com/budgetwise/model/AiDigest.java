@@ -0,0 +1,53 @@
+package com.budgetwise.model;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * Precomputed AI insight for one user and kind. The digest is stale once the user's data version
+ * (see {@code UserDataVersionService}) is ahead of {@code digestVersion}.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@Entity
+@Table(name = "ai_digests", uniqueConstraints = {
+        @UniqueConstraint(name = "uk_ai_digest_user_kind", columnNames = {"user_id", "kind"})
+})
+public class AiDigest {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "user_id", nullable = false)
+    private Long userId;
+
+    @Enumerated(EnumType.STRING)
+    @Column(name = "kind", nullable = false, length = 50)
+    private DigestKind kind;
+
+    @Column(name = "model", nullable = false, length = 100)
+    private String model;
+
+    @Column(name = "insight", columnDefinition = "TEXT")
+    private String insight;
+
+    @Column(name = "category", length = 100)
+    private String category;
+
+    @Column(name = "recommendation", columnDefinition = "TEXT")
+    private String recommendation;
+
+    @Column(name = "digest_version", nullable = false)
+    private Long digestVersion; // data version the digest was generated from
+
+    @Column(name = "generated_at", nullable = false)
+    private LocalDateTime generatedAt;
+}
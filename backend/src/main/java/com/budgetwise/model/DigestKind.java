@@ -0,0 +1,25 @@
+package com.budgetwise.model;
+
+import com.budgetwise.dto.QueryIntent;
+
+public enum DigestKind {
+    SPENDING_ANALYSIS("Analyze my spending patterns and provide insights", QueryIntent.CATEGORY_SPENDING),
+    BUDGET_RECOMMENDATIONS("Provide budget recommendations based on my spending", QueryIntent.BUDGET_PLAN);
+
+    private final String query;
+    // Rule-based answer served until the first digest has been generated
+    private final QueryIntent placeholderIntent;
+
+    DigestKind(String query, QueryIntent placeholderIntent) {
+        this.query = query;
+        this.placeholderIntent = placeholderIntent;
+    }
+
+    public String getQuery() {
+        return query;
+    }
+
+    public QueryIntent getPlaceholderIntent() {
+        return placeholderIntent;
+    }
+}
@@ -0,0 +1,39 @@
+package com.budgetwise.model;
+
+import java.util.Locale;
+
+public enum ExportFormat {
+    PDF("application/pdf", "financial-report-", ".pdf"),
+    CSV("text/csv", "financial-data-", ".csv"),
+    HTML("text/html", "financial-report-", ".html");
+
+    private final String contentType;
+    private final String filenamePrefix;
+    private final String extension;
+
+    ExportFormat(String contentType, String filenamePrefix, String extension) {
+        this.contentType = contentType;
+        this.filenamePrefix = filenamePrefix;
+        this.extension = extension;
+    }
+
+    public String getContentType() {
+        return contentType;
+    }
+
+    public String getFilenamePrefix() {
+        return filenamePrefix;
+    }
+
+    public String getExtension() {
+        return extension;
+    }
+
+    public static ExportFormat from(String format) {
+        try {
+            return valueOf(format.trim().toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException e) {
+            throw new RuntimeException("Unsupported export format: " + format);
+        }
+    }
+}
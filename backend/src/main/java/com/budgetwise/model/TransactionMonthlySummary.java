@@ -0,0 +1,47 @@
+package com.budgetwise.model;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+/**
+ * Per-user monthly rollup of transactions, maintained on every transaction write.
+ * Dashboard and analytics totals read from here instead of scanning all transactions.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@Entity
+@Table(name = "transaction_monthly_summaries", uniqueConstraints = {
+        @UniqueConstraint(name = "uk_txn_summary_key", columnNames = {"user_id", "month_start", "type", "category"})
+})
+public class TransactionMonthlySummary {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "user_id", nullable = false)
+    private Long userId;
+
+    @Column(name = "month_start", nullable = false)
+    private LocalDate monthStart; // first day of the month
+
+    @Column(name = "type", nullable = false, length = 50)
+    private String type; // upper-cased INCOME or EXPENSE
+
+    @Column(name = "category", nullable = false, length = 100)
+    private String category;
+
+    @Column(name = "total_amount", nullable = false, precision = 19, scale = 2)
+    private BigDecimal totalAmount;
+
+    @Column(name = "txn_count", nullable = false)
+    private Long txnCount;
+}
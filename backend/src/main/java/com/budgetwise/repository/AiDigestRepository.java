@@ -0,0 +1,41 @@
+package com.budgetwise.repository;
+
+import com.budgetwise.model.AiDigest;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Repository
+public interface AiDigestRepository extends JpaRepository<AiDigest, Long> {
+
+    List<AiDigest> findByUserId(Long userId);
+
+    // version is the user's data version read before generating, so changes made meanwhile leave it stale
+    @Transactional
+    @Modifying
+    @Query(value = """
+            INSERT INTO ai_digests (user_id, kind, model, insight, category, recommendation, digest_version, generated_at)
+            VALUES (:userId, :kind, :model, :insight, :category, :recommendation, :version, :generatedAt)
+            ON DUPLICATE KEY UPDATE
+                model = VALUES(model),
+                insight = VALUES(insight),
+                category = VALUES(category),
+                recommendation = VALUES(recommendation),
+                digest_version = VALUES(digest_version),
+                generated_at = VALUES(generated_at)
+            """, nativeQuery = true)
+    void upsert(@Param("userId") Long userId,
+                @Param("kind") String kind,
+                @Param("model") String model,
+                @Param("insight") String insight,
+                @Param("category") String category,
+                @Param("recommendation") String recommendation,
+                @Param("version") long version,
+                @Param("generatedAt") LocalDateTime generatedAt);
+}
@@ -3,6 +3,8 @@ package com.budgetwise.repository;
 import com.budgetwise.model.Budget;
 import com.budgetwise.model.User;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 
 import java.time.LocalDate;
 import java.util.List;
@@ -12,4 +14,21 @@ public interface BudgetRepository extends JpaRepository<Budget, Long> {
     List<Budget> findByUserAndStartDateLessThanEqualAndEndDateGreaterThanEqual(
             User user, LocalDate currentDate, LocalDate currentDate2);
     List<Budget> findByUserAndCategory(User user, String category);
+
+    // Budgets active on :day with the expenses booked against each inside its own window, in one grouped query.
+    // Rows are (id, category, amount, start_date, end_date, spent); the join walks idx_transactions_user_category_date.
+    @Query(value = """
+            SELECT b.id, b.category, b.amount, b.start_date, b.end_date, COALESCE(SUM(t.amount), 0) AS spent
+            FROM budgets b
+            LEFT JOIN transactions t
+              ON t.user_id = b.user_id
+             AND t.category = b.category
+             AND t.date >= b.start_date
+             AND t.date < DATE_ADD(b.end_date, INTERVAL 1 DAY)
+             AND UPPER(t.type) <> 'INCOME'
+            WHERE b.user_id = :userId AND b.start_date <= :day AND b.end_date >= :day
+            GROUP BY b.id, b.category, b.amount, b.start_date, b.end_date
+            ORDER BY b.category, b.id
+            """, nativeQuery = true)
+    List<Object[]> findActiveWithSpent(@Param("userId") Long userId, @Param("day") LocalDate day);
 }
\ No newline at end of file
@@ -0,0 +1,115 @@
+package com.budgetwise.repository;
+
+import com.budgetwise.dto.CategoryTotal;
+import com.budgetwise.model.TransactionMonthlySummary;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.List;
+
+@Repository
+public interface TransactionMonthlySummaryRepository extends JpaRepository<TransactionMonthlySummary, Long> {
+
+    // Adds a signed delta to one (user, month, type, category) bucket, creating it when missing
+    @Modifying
+    @Query(value = """
+            INSERT INTO transaction_monthly_summaries (user_id, month_start, type, category, total_amount, txn_count)
+            VALUES (:userId, :monthStart, :type, :category, :amount, :count)
+            ON DUPLICATE KEY UPDATE
+                total_amount = total_amount + VALUES(total_amount),
+                txn_count = txn_count + VALUES(txn_count)
+            """, nativeQuery = true)
+    void upsertDelta(@Param("userId") Long userId,
+                     @Param("monthStart") LocalDate monthStart,
+                     @Param("type") String type,
+                     @Param("category") String category,
+                     @Param("amount") BigDecimal amount,
+                     @Param("count") long count);
+
+    @Modifying
+    @Query(value = "DELETE FROM transaction_monthly_summaries WHERE user_id = :userId AND txn_count <= 0", nativeQuery = true)
+    void deleteEmptyBuckets(@Param("userId") Long userId);
+
+    @Transactional
+    @Modifying
+    @Query(value = "DELETE FROM transaction_monthly_summaries WHERE user_id = :userId", nativeQuery = true)
+    void deleteAllForUser(@Param("userId") Long userId);
+
+    @Transactional
+    @Modifying
+    @Query(value = """
+            INSERT INTO transaction_monthly_summaries (user_id, month_start, type, category, total_amount, txn_count)
+            SELECT user_id, CAST(DATE_FORMAT(date, '%Y-%m-01') AS DATE), UPPER(type), category, SUM(amount), COUNT(*)
+            FROM transactions
+            WHERE user_id = :userId
+            GROUP BY user_id, CAST(DATE_FORMAT(date, '%Y-%m-01') AS DATE), UPPER(type), category
+            """, nativeQuery = true)
+    void rebuildForUser(@Param("userId") Long userId);
+
+    @Transactional
+    @Modifying
+    @Query(value = "DELETE FROM transaction_monthly_summaries", nativeQuery = true)
+    void deleteAllBuckets();
+
+    @Transactional
+    @Modifying
+    @Query(value = """
+            INSERT INTO transaction_monthly_summaries (user_id, month_start, type, category, total_amount, txn_count)
+            SELECT user_id, CAST(DATE_FORMAT(date, '%Y-%m-01') AS DATE), UPPER(type), category, SUM(amount), COUNT(*)
+            FROM transactions
+            GROUP BY user_id, CAST(DATE_FORMAT(date, '%Y-%m-01') AS DATE), UPPER(type), category
+            """, nativeQuery = true)
+    void rebuildAll();
+
+    @Query("""
+            SELECT s.type, SUM(s.totalAmount), SUM(s.txnCount)
+            FROM TransactionMonthlySummary s
+            WHERE s.userId = :userId
+            GROUP BY s.type
+            """)
+    List<Object[]> sumByType(@Param("userId") Long userId);
+
+    // Rows are (type, category, total, count); totals and category breakdowns in one read
+    @Query("""
+            SELECT s.type, s.category, SUM(s.totalAmount), SUM(s.txnCount)
+            FROM TransactionMonthlySummary s
+            WHERE s.userId = :userId
+            GROUP BY s.type, s.category
+            ORDER BY SUM(s.totalAmount) DESC
+            """)
+    List<Object[]> sumByTypeAndCategory(@Param("userId") Long userId);
+
+    @Query("""
+            SELECT new com.budgetwise.dto.CategoryTotal(s.category, SUM(s.totalAmount), SUM(s.txnCount))
+            FROM TransactionMonthlySummary s
+            WHERE s.userId = :userId AND s.type = :type
+            GROUP BY s.category
+            ORDER BY SUM(s.totalAmount) DESC
+            """)
+    List<CategoryTotal> sumByCategory(@Param("userId") Long userId, @Param("type") String type);
+
+    // Rows are (monthStart, type, total) for months in [from, to]
+    @Query("""
+            SELECT s.monthStart, s.type, SUM(s.totalAmount)
+            FROM TransactionMonthlySummary s
+            WHERE s.userId = :userId AND s.monthStart >= :from AND s.monthStart <= :to
+            GROUP BY s.monthStart, s.type
+            """)
+    List<Object[]> sumByMonth(@Param("userId") Long userId,
+                              @Param("from") LocalDate from,
+                              @Param("to") LocalDate to);
+
+    @Query("""
+            SELECT s.type, SUM(s.totalAmount)
+            FROM TransactionMonthlySummary s
+            WHERE s.userId = :userId AND s.monthStart < :before
+            GROUP BY s.type
+            """)
+    List<Object[]> sumByTypeBefore(@Param("userId") Long userId, @Param("before") LocalDate before);
+}
@@ -1,14 +1,140 @@
 package com.budgetwise.repository;
 
+import com.budgetwise.dto.CategoryTotal;
 import com.budgetwise.model.Transaction;
 import com.budgetwise.model.User;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 
+import java.math.BigDecimal;
 import java.time.LocalDateTime;
 import java.util.List;
+import java.util.stream.Stream;
 
 public interface TransactionRepository extends JpaRepository<Transaction, Long> {
     List<Transaction> findByUser(User user);
     List<Transaction> findByUserAndDateBetween(User user, LocalDateTime start, LocalDateTime end);
     List<Transaction> findByUserAndCategory(User user, String category);
-}
\ No newline at end of file
+
+    // Keyset page ordered newest first; walks idx_transactions_user_date_id from the (date, id) cursor
+    @Query("""
+            SELECT t FROM Transaction t
+            WHERE t.user.id = :userId
+              AND (:category IS NULL OR t.category = :category)
+              AND (:type IS NULL OR UPPER(t.type) = UPPER(:type))
+              AND (:paymentMethod IS NULL OR t.paymentMethod = :paymentMethod)
+              AND (:minAmount IS NULL OR t.amount >= :minAmount)
+              AND (:maxAmount IS NULL OR t.amount <= :maxAmount)
+              AND (:start IS NULL OR t.date >= :start)
+              AND (:end IS NULL OR t.date <= :end)
+              AND (:cursorDate IS NULL
+                   OR t.date < :cursorDate
+                   OR (t.date = :cursorDate AND t.id < :cursorId))
+            ORDER BY t.date DESC, t.id DESC
+            """)
+    List<Transaction> findPage(@Param("userId") Long userId,
+                               @Param("category") String category,
+                               @Param("type") String type,
+                               @Param("paymentMethod") String paymentMethod,
+                               @Param("minAmount") BigDecimal minAmount,
+                               @Param("maxAmount") BigDecimal maxAmount,
+                               @Param("start") LocalDateTime start,
+                               @Param("end") LocalDateTime end,
+                               @Param("cursorDate") LocalDateTime cursorDate,
+                               @Param("cursorId") Long cursorId,
+                               Pageable pageable);
+
+    // Category totals for one type computed in the database; range bounds are optional, the page limits to the top N
+    @Query("""
+            SELECT new com.budgetwise.dto.CategoryTotal(t.category, SUM(t.amount), COUNT(t))
+            FROM Transaction t
+            WHERE t.user.id = :userId
+              AND UPPER(t.type) = :type
+              AND (:start IS NULL OR t.date >= :start)
+              AND (:end IS NULL OR t.date < :end)
+            GROUP BY t.category
+            ORDER BY SUM(t.amount) DESC
+            """)
+    List<CategoryTotal> sumByCategory(@Param("userId") Long userId,
+                                      @Param("type") String type,
+                                      @Param("start") LocalDateTime start,
+                                      @Param("end") LocalDateTime end,
+                                      Pageable pageable);
+
+    // Totals per description within one category, used for the subcategory drill-down
+    @Query("""
+            SELECT new com.budgetwise.dto.CategoryTotal(t.description, SUM(t.amount), COUNT(t))
+            FROM Transaction t
+            WHERE t.user.id = :userId
+              AND UPPER(t.type) = :type
+              AND t.category = :category
+              AND (:start IS NULL OR t.date >= :start)
+              AND (:end IS NULL OR t.date < :end)
+            GROUP BY t.description
+            ORDER BY SUM(t.amount) DESC
+            """)
+    List<CategoryTotal> sumByDescription(@Param("userId") Long userId,
+                                         @Param("type") String type,
+                                         @Param("category") String category,
+                                         @Param("start") LocalDateTime start,
+                                         @Param("end") LocalDateTime end,
+                                         Pageable pageable);
+
+    @Query("""
+            SELECT t FROM Transaction t
+            WHERE t.user.id = :userId AND UPPER(t.type) <> 'INCOME' AND t.date >= :since
+            ORDER BY t.amount DESC
+            """)
+    List<Transaction> findLargestExpenses(@Param("userId") Long userId,
+                                          @Param("since") LocalDateTime since,
+                                          Pageable pageable);
+
+    @Query("SELECT DISTINCT t.user.id FROM Transaction t WHERE t.date >= :since")
+    List<Long> findActiveUserIds(@Param("since") LocalDateTime since);
+
+    // Income/expense per calendar day; rows are (bucket, type, total)
+    @Query(value = """
+            SELECT DATE(t.date) AS bucket, UPPER(t.type) AS type, SUM(t.amount) AS total
+            FROM transactions t
+            WHERE t.user_id = :userId AND t.date >= :start AND t.date < :end
+            GROUP BY DATE(t.date), UPPER(t.type)
+            """, nativeQuery = true)
+    List<Object[]> sumByDay(@Param("userId") Long userId,
+                            @Param("start") LocalDateTime start,
+                            @Param("end") LocalDateTime end);
+
+    // Income/expense per ISO week, bucketed on the Monday; rows are (bucket, type, total)
+    @Query(value = """
+            SELECT DATE_SUB(DATE(t.date), INTERVAL WEEKDAY(t.date) DAY) AS bucket, UPPER(t.type) AS type, SUM(t.amount) AS total
+            FROM transactions t
+            WHERE t.user_id = :userId AND t.date >= :start AND t.date < :end
+            GROUP BY DATE_SUB(DATE(t.date), INTERVAL WEEKDAY(t.date) DAY), UPPER(t.type)
+            """, nativeQuery = true)
+    List<Object[]> sumByWeek(@Param("userId") Long userId,
+                             @Param("start") LocalDateTime start,
+                             @Param("end") LocalDateTime end);
+
+    @Query("""
+            SELECT UPPER(t.type), SUM(t.amount)
+            FROM Transaction t
+            WHERE t.user.id = :userId AND t.date >= :start AND t.date < :end
+            GROUP BY UPPER(t.type)
+            """)
+    List<Object[]> sumByTypeBetween(@Param("userId") Long userId,
+                                    @Param("start") LocalDateTime start,
+                                    @Param("end") LocalDateTime end);
+
+    // Forward-only cursor: Integer.MIN_VALUE makes MySQL Connector/J stream rows instead of buffering the result set
+    @QueryHints({
+            @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "" + Integer.MIN_VALUE),
+            @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true"),
+            @QueryHint(name = HibernateHints.HINT_CACHEABLE, value = "false")
+    })
+    @Query("SELECT t FROM Transaction t WHERE t.user.id = :userId ORDER BY t.date DESC, t.id DESC")
+    Stream<Transaction> streamByUserId(@Param("userId") Long userId);
+}
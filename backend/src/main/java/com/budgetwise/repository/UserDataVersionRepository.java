@@ -0,0 +1,25 @@
+package com.budgetwise.repository;
+
+import com.budgetwise.model.UserDataVersion;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.Optional;
+
+@Repository
+public interface UserDataVersionRepository extends JpaRepository<UserDataVersion, Long> {
+
+    // Runs in the writer's transaction: the row lock orders versions of one user by commit
+    @Modifying
+    @Query(value = """
+            INSERT INTO user_data_versions (user_id, version) VALUES (:userId, 1)
+            ON DUPLICATE KEY UPDATE version = version + 1
+            """, nativeQuery = true)
+    void bump(@Param("userId") Long userId);
+
+    @Query(value = "SELECT version FROM user_data_versions WHERE user_id = :userId", nativeQuery = true)
+    Optional<Long> findVersion(@Param("userId") Long userId);
+}
@@ -0,0 +1,15 @@
+package com.budgetwise.security;
+
+import java.security.Principal;
+
+/**
+ * Minimal identity of an authenticated caller, resolved once per request by the JWT filter.
+ * Used as the principal of the security context, so {@code Authentication.getName()} stays the username.
+ */
+public record AuthenticatedUser(Long id, String username, String role) implements Principal {
+
+    @Override
+    public String getName() {
+        return username;
+    }
+}
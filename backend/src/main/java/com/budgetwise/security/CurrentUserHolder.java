@@ -0,0 +1,20 @@
+package com.budgetwise.security;
+
+import com.budgetwise.model.User;
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.stereotype.Component;
+import org.springframework.web.context.annotation.RequestScope;
+
+/**
+ * Request-scoped holder for the resolved principal.
+ * Filled by {@link JwtAuthenticationFilter}; the user entity is loaded at most once per request.
+ */
+@Getter
+@Setter
+@Component
+@RequestScope
+public class CurrentUserHolder {
+    private AuthenticatedUser principal;
+    private User user;
+}
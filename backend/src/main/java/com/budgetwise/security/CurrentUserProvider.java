@@ -0,0 +1,94 @@
+package com.budgetwise.security;
+
+import com.budgetwise.model.User;
+import com.budgetwise.repository.UserRepository;
+import lombok.RequiredArgsConstructor;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.stereotype.Component;
+import org.springframework.web.context.request.RequestContextHolder;
+
+/**
+ * Single entry point for services to obtain the authenticated user.
+ * Reads the principal resolved by {@link JwtAuthenticationFilter} instead of looking the user up
+ * by username/email again in every service call.
+ */
+@Component
+@RequiredArgsConstructor
+public class CurrentUserProvider {
+
+    private final CurrentUserHolder currentUserHolder;
+    private final UserRepository userRepository;
+    private final PrincipalCache principalCache;
+
+    public AuthenticatedUser getPrincipal() {
+        CurrentUserHolder holder = holder();
+        if (holder != null && holder.getPrincipal() != null) {
+            return holder.getPrincipal();
+        }
+
+        Authentication auth = SecurityContextHolder.getContext().getAuthentication();
+        if (auth == null || auth.getName() == null || auth.getName().equals("anonymousUser")) {
+            throw new RuntimeException("User not authenticated. Please login again.");
+        }
+
+        AuthenticatedUser principal = auth.getPrincipal() instanceof AuthenticatedUser authenticated
+                ? authenticated
+                : principalCache.get(auth.getName());
+        if (principal == null) {
+            User user = loadUser(auth.getName());
+            principal = toPrincipal(user);
+            principalCache.put(auth.getName(), principal);
+            if (holder != null) {
+                holder.setUser(user);
+            }
+        }
+        if (holder != null) {
+            holder.setPrincipal(principal);
+        }
+        return principal;
+    }
+
+    public Long getCurrentUserId() {
+        return getPrincipal().id();
+    }
+
+    /**
+     * Lazy reference to the current user, enough for associations and id comparisons without a query.
+     */
+    public User getCurrentUserReference() {
+        return userRepository.getReferenceById(getCurrentUserId());
+    }
+
+    /**
+     * Fully loaded current user; fetched at most once per request.
+     */
+    public User getCurrentUser() {
+        Long userId = getCurrentUserId();
+        CurrentUserHolder holder = holder();
+        if (holder != null && holder.getUser() != null) {
+            return holder.getUser();
+        }
+        User user = userRepository.findById(userId)
+                .orElseThrow(() -> new RuntimeException("User not found"));
+        if (holder != null) {
+            holder.setUser(user);
+        }
+        return user;
+    }
+
+    public static AuthenticatedUser toPrincipal(User user) {
+        return new AuthenticatedUser(user.getId(), user.getUsername(), user.getRole().name());
+    }
+
+    private User loadUser(String identifier) {
+        return userRepository.findByUsername(identifier)
+                .or(() -> userRepository.findByEmail(identifier))
+                .orElseThrow(() -> new RuntimeException("User not found: " + identifier));
+    }
+
+    // The request-scoped holder only exists on request threads (not in schedulers or async executors)
+    private CurrentUserHolder holder() {
+        return RequestContextHolder.getRequestAttributes() != null ? currentUserHolder : null;
+    }
+}
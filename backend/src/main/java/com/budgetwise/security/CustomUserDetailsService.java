@@ -21,9 +21,7 @@ public class CustomUserDetailsService implements UserDetailsService {
 
     @Override
     public UserDetails loadUserByUsername(String identifier) throws UsernameNotFoundException {
-        User user = userRepository.findByUsername(identifier)
-                .or(() -> userRepository.findByEmail(identifier))
-                .orElseThrow(() -> new UsernameNotFoundException("User not found with username or email: " + identifier));
+        User user = loadUser(identifier);
 
         // Convert our User entity to Spring Security's UserDetails
         return org.springframework.security.core.userdetails.User
@@ -36,4 +34,13 @@ public class CustomUserDetailsService implements UserDetailsService {
                 .disabled(false)
                 .build();
     }
+
+    /**
+     * Loads the user entity itself, for callers that need the id as well as the credentials.
+     */
+    public User loadUser(String identifier) throws UsernameNotFoundException {
+        return userRepository.findByUsername(identifier)
+                .or(() -> userRepository.findByEmail(identifier))
+                .orElseThrow(() -> new UsernameNotFoundException("User not found with username or email: " + identifier));
+    }
 }
@@ -1,29 +1,45 @@
 package com.budgetwise.security;
 
+import com.budgetwise.model.User;
+import io.jsonwebtoken.Claims;
 import jakarta.servlet.FilterChain;
 import jakarta.servlet.ServletException;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
 import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
 import org.springframework.security.core.context.SecurityContextHolder;
-import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.security.web.authentication.WebAuthenticationDetailsSource;
 import org.springframework.stereotype.Component;
 import org.springframework.web.filter.OncePerRequestFilter;
 
 import java.io.IOException;
+import java.util.List;
 
 /**
  * Intercepts every incoming request and validates JWT if present.
  * Ensures authenticated context is set for all secured endpoints (GET, POST, PUT, DELETE).
+ *
+ * In stateless mode (jwt.stateless=true) the token is parsed and verified once and the principal is
+ * built from its claims, so authenticated requests do not touch the database. Tokens without a user id
+ * claim, or stateless mode switched off, fall back to a cached user lookup.
  */
+@Slf4j
 @Component
 @RequiredArgsConstructor
 public class JwtAuthenticationFilter extends OncePerRequestFilter {
 
     private final JwtTokenProvider jwtTokenProvider;
     private final CustomUserDetailsService customUserDetailsService;
+    private final PrincipalCache principalCache;
+    private final CurrentUserHolder currentUserHolder;
+    private final TokenRevocationService tokenRevocationService;
+
+    @Value("${jwt.stateless:true}")
+    private boolean stateless;
 
     @Override
     protected void doFilterInternal(HttpServletRequest request,
@@ -34,7 +50,7 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
         final String authHeader = request.getHeader("Authorization");
 
         // Log every incoming request for debugging
-        System.out.println("Incoming request: " + request.getMethod() + " " + request.getRequestURI());
+        log.debug("Incoming request: {} {}", request.getMethod(), request.getRequestURI());
 
         // If no JWT header or malformed, move forward without authentication
         if (authHeader == null || !authHeader.startsWith("Bearer ")) {
@@ -45,35 +61,51 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
         final String jwt = authHeader.substring(7).trim();
 
         try {
-            // Extract username/email from token
-            final String identifier = jwtTokenProvider.extractUsername(jwt);
+            // Single parse: verifies signature and expiration, throws if either fails
+            final Claims claims = jwtTokenProvider.parseClaims(jwt);
+            final String identifier = claims.getSubject();
 
             if (identifier != null && SecurityContextHolder.getContext().getAuthentication() == null) {
-                UserDetails userDetails = customUserDetailsService.loadUserByUsername(identifier);
+                AuthenticatedUser principal = stateless ? jwtTokenProvider.toPrincipal(claims) : null;
+                if (principal == null) {
+                    principal = resolvePrincipal(identifier);
+                }
 
-                // Validate JWT signature and expiration
-                if (jwtTokenProvider.validateToken(jwt, userDetails)) {
+                if (!tokenRevocationService.isRevoked(jwt, claims, principal.id())) {
                     UsernamePasswordAuthenticationToken authToken =
                             new UsernamePasswordAuthenticationToken(
-                                    userDetails,
+                                    principal,
                                     null,
-                                    userDetails.getAuthorities()
+                                    List.of(new SimpleGrantedAuthority(principal.role()))
                             );
 
                     authToken.setDetails(new WebAuthenticationDetailsSource().buildDetails(request));
                     SecurityContextHolder.getContext().setAuthentication(authToken);
+                    currentUserHolder.setPrincipal(principal);
 
-                    System.out.println("Authenticated user: " + identifier);
+                    log.debug("Authenticated user: {}", identifier);
                 } else {
-                    System.out.println("Invalid or expired JWT for: " + identifier);
+                    log.debug("Revoked JWT for: {}", identifier);
                 }
             }
 
         } catch (Exception ex) {
-            System.out.println("JWT processing error: " + ex.getMessage());
+            log.debug("JWT processing error: {}", ex.getMessage());
         }
 
         // Continue to next filter or controller
         filterChain.doFilter(request, response);
     }
+
+    // Resolve the user once per request; repeat requests within the cache TTL skip the DB
+    private AuthenticatedUser resolvePrincipal(String identifier) {
+        AuthenticatedUser principal = principalCache.get(identifier);
+        if (principal == null) {
+            User user = customUserDetailsService.loadUser(identifier);
+            principal = CurrentUserProvider.toPrincipal(user);
+            principalCache.put(identifier, principal);
+            currentUserHolder.setUser(user);
+        }
+        return principal;
+    }
 }
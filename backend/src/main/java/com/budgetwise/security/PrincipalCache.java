@@ -0,0 +1,38 @@
+package com.budgetwise.security;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+
+/**
+ * Short-lived, bounded cache of token subject to resolved principal, so the JWT filter does not
+ * query the users table on every request. Entries expire quickly and are evicted on username changes.
+ */
+@Component
+public class PrincipalCache {
+
+    private final Cache<String, AuthenticatedUser> cache;
+
+    public PrincipalCache(@Value("${security.principal-cache.ttl-seconds:60}") long ttlSeconds,
+                          @Value("${security.principal-cache.max-size:10000}") long maxSize) {
+        this.cache = Caffeine.newBuilder()
+                .expireAfterWrite(Duration.ofSeconds(ttlSeconds))
+                .maximumSize(maxSize)
+                .build();
+    }
+
+    public AuthenticatedUser get(String identifier) {
+        return cache.getIfPresent(identifier);
+    }
+
+    public void put(String identifier, AuthenticatedUser principal) {
+        cache.put(identifier, principal);
+    }
+
+    public void evict(String identifier) {
+        cache.invalidate(identifier);
+    }
+}
@@ -0,0 +1,68 @@
+package com.budgetwise.security;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.jsonwebtoken.Claims;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.time.Instant;
+
+/**
+ * In-memory revocation for stateless JWTs.
+ * Individual tokens are denylisted by id on logout; all tokens of a user issued before a point in
+ * time can be rejected at once (token version). Entries only need to outlive the token lifetime,
+ * so the caches are bounded by expiry alone: evicting on size would silently un-revoke a live token.
+ */
+@Slf4j
+@Service
+public class TokenRevocationService {
+
+    private final JwtTokenProvider jwtTokenProvider;
+    private final Cache<String, Boolean> revokedTokens;
+    private final Cache<Long, Long> userNotBefore; // user id -> epoch second
+
+    public TokenRevocationService(JwtTokenProvider jwtTokenProvider) {
+        this.jwtTokenProvider = jwtTokenProvider;
+        Duration lifetime = Duration.ofMillis(jwtTokenProvider.getExpirationMillis());
+        this.revokedTokens = Caffeine.newBuilder()
+                .expireAfterWrite(lifetime)
+                .build();
+        this.userNotBefore = Caffeine.newBuilder()
+                .expireAfterWrite(lifetime)
+                .build();
+    }
+
+    public boolean isRevoked(String token, Claims claims, Long userId) {
+        if (revokedTokens.getIfPresent(tokenKey(token, claims)) != null) {
+            return true;
+        }
+        Long notBefore = userId != null ? userNotBefore.getIfPresent(userId) : null;
+        return notBefore != null
+                && (claims.getIssuedAt() == null || claims.getIssuedAt().toInstant().getEpochSecond() < notBefore);
+    }
+
+    /**
+     * Denylists a single token until it would have expired anyway.
+     */
+    public void revoke(String token) {
+        try {
+            Claims claims = jwtTokenProvider.parseClaims(token);
+            revokedTokens.put(tokenKey(token, claims), Boolean.TRUE);
+        } catch (Exception e) {
+            log.debug("Ignoring revocation of invalid token: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * Invalidates every token issued to the user so far.
+     */
+    public void revokeAllForUser(Long userId) {
+        userNotBefore.put(userId, Instant.now().getEpochSecond());
+    }
+
+    private static String tokenKey(String token, Claims claims) {
+        return claims.getId() != null ? claims.getId() : token;
+    }
+}
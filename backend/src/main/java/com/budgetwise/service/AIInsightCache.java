@@ -0,0 +1,71 @@
+package com.budgetwise.service;
+
+import com.budgetwise.dto.AIInsightResponse;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.util.Locale;
+import java.util.regex.Pattern;
+
+/**
+ * Bounded, expiring cache of AI answers keyed by model, normalised query and the user's data version
+ * (see {@link UserDataVersionService}), so stale answers are never served and simply age out of the cache.
+ */
+@Slf4j
+@Service
+public class AIInsightCache {
+
+    private static final Pattern WHITESPACE = Pattern.compile("\\s+");
+    private static final Pattern TRAILING_PUNCTUATION = Pattern.compile("[?.!]+$");
+
+    private final Cache<String, AIInsightResponse> cache;
+    private final UserDataVersionService versionService;
+
+    public AIInsightCache(UserDataVersionService versionService,
+                          @Value("${ai.cache.max-size:1000}") long maxSize,
+                          @Value("${ai.cache.ttl-minutes:30}") long ttlMinutes,
+                          MeterRegistry meterRegistry) {
+        this.versionService = versionService;
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfterWrite(Duration.ofMinutes(ttlMinutes))
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, cache, "ai.insight.cache");
+        Gauge.builder("ai.insight.cache.hit_ratio", cache, c -> c.stats().hitRate())
+                .description("Share of AI insight requests answered from the cache")
+                .register(meterRegistry);
+    }
+
+    public AIInsightResponse getIfPresent(String key) {
+        return cache.getIfPresent(key);
+    }
+
+    // Error answers are not cached
+    public void put(String key, AIInsightResponse response) {
+        if (response != null && !"Error".equals(response.getCategory())) {
+            cache.put(key, response);
+        }
+    }
+
+    // Cache key for the user's current data version; take it before generating the answer
+    public String key(Long userId, String model, String query) {
+        long version = versionService.current(userId);
+        return model + '|' + userId + '|' + version + '|' + normalize(query);
+    }
+
+    static String normalize(String query) {
+        if (query == null) {
+            return "";
+        }
+        String normalized = WHITESPACE.matcher(query.trim().toLowerCase(Locale.ROOT)).replaceAll(" ");
+        return TRAILING_PUNCTUATION.matcher(normalized).replaceAll("");
+    }
+}
@@ -0,0 +1,205 @@
+package com.budgetwise.service;
+
+import com.budgetwise.dto.AIInsightResponse;
+import com.budgetwise.dto.FinancialSnapshot;
+import com.budgetwise.event.TransactionChangedEvent;
+import com.budgetwise.exception.LlmBusyException;
+import com.budgetwise.model.AiDigest;
+import com.budgetwise.model.DigestKind;
+import com.budgetwise.repository.AiDigestRepository;
+import com.budgetwise.repository.TransactionRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Precomputes the spending analysis and budget recommendation insights so those endpoints answer from
+ * the database instead of waiting on the model. Digests are refreshed off-peak for recently active users
+ * and in the background once enough transaction changes have piled up; in between they are served
+ * with a stale flag. Generation goes through {@link LlmGateway} so it never exceeds the model's capacity.
+ */
+@Slf4j
+@Service
+public class AiDigestService {
+
+    private final AiDigestRepository digestRepository;
+    private final TransactionRepository transactionRepository;
+    private final OllamaService ollamaService;
+    private final FinancialContextBuilder contextBuilder;
+    private final LlmGateway llmGateway;
+    private final UserDataVersionService versionService;
+    private final int activeDays;
+    private final int refreshAfterChanges;
+    private final Duration retryBackoff;
+    // Background refreshes in flight, and failed ones waiting out the backoff, keyed by user and kind
+    private final Set<String> refreshing = ConcurrentHashMap.newKeySet();
+    private final Map<String, Instant> retryAfter = new ConcurrentHashMap<>();
+
+    public AiDigestService(AiDigestRepository digestRepository,
+                           TransactionRepository transactionRepository,
+                           OllamaService ollamaService,
+                           FinancialContextBuilder contextBuilder,
+                           LlmGateway llmGateway,
+                           UserDataVersionService versionService,
+                           @Value("${ai.digest.active-days:30}") int activeDays,
+                           @Value("${ai.digest.refresh-after-changes:20}") int refreshAfterChanges,
+                           @Value("${ai.digest.retry-backoff-minutes:10}") long retryBackoffMinutes) {
+        this.digestRepository = digestRepository;
+        this.transactionRepository = transactionRepository;
+        this.ollamaService = ollamaService;
+        this.contextBuilder = contextBuilder;
+        this.llmGateway = llmGateway;
+        this.versionService = versionService;
+        this.activeDays = activeDays;
+        this.refreshAfterChanges = refreshAfterChanges;
+        this.retryBackoff = Duration.ofMinutes(retryBackoffMinutes);
+    }
+
+    /**
+     * Returns the stored digest, stale or not, without waiting on the model. When the user has none yet, or it
+     * was produced by a different model, a rule-based placeholder marked stale is returned and the digest is
+     * generated in the background.
+     */
+    public AIInsightResponse getDigest(Long userId, DigestKind kind) {
+        Optional<AiDigest> digest = digestRepository.findByUserId(userId).stream()
+                .filter(d -> d.getKind() == kind && ollamaService.getModel().equals(d.getModel()))
+                .findFirst();
+        if (digest.isPresent()) {
+            return toResponse(digest.get(), versionService.current(userId));
+        }
+        try {
+            refreshInBackground(userId, kind);
+        } catch (RuntimeException e) {
+            log.warn("Could not start {} digest for user {}: {}", kind, userId, e.getMessage());
+        }
+        AIInsightResponse placeholder = ollamaService.ruleBasedInsight(kind.getPlaceholderIntent(), contextBuilder.snapshot(userId));
+        placeholder.setStale(true);
+        return placeholder;
+    }
+
+    public CompletableFuture<AIInsightResponse> refresh(Long userId, DigestKind kind) {
+        // Read the version first so changes made while generating leave the new digest stale
+        long version = versionService.current(userId);
+        FinancialSnapshot snapshot = contextBuilder.snapshot(userId);
+        if (ollamaService.hasPredefinedResponse(kind.getQuery(), snapshot)) {
+            return CompletableFuture.completedFuture(store(userId, kind, version,
+                    ollamaService.generateInsight(kind.getQuery(), snapshot)));
+        }
+        return llmGateway.submit(userId, "digest|" + kind + '|' + userId,
+                () -> store(userId, kind, version, ollamaService.generateInsight(kind.getQuery(), snapshot)));
+    }
+
+    @Scheduled(cron = "${ai.digest.cron:0 0 2 * * *}")
+    public void refreshActiveUsers() {
+        long start = System.currentTimeMillis();
+        List<Long> userIds = transactionRepository.findActiveUserIds(LocalDateTime.now().minusDays(activeDays));
+        int refreshed = 0;
+        for (Long userId : userIds) {
+            List<AiDigest> digests = digestRepository.findByUserId(userId);
+            long version = versionService.current(userId);
+            for (DigestKind kind : DigestKind.values()) {
+                if (!needsRefresh(digests, kind, version)) {
+                    continue;
+                }
+                try {
+                    // One at a time, so the nightly run leaves gateway capacity for interactive users
+                    refresh(userId, kind).join();
+                    refreshed++;
+                } catch (LlmBusyException | CompletionException e) {
+                    log.warn("Could not refresh {} digest for user {}: {}", kind, userId, e.getMessage());
+                }
+            }
+        }
+        log.info("Refreshed {} AI digests for {} active users in {}ms",
+                refreshed, userIds.size(), System.currentTimeMillis() - start);
+    }
+
+    /**
+     * Refreshes a digest in the background once it is refresh-after-changes versions behind. At most one
+     * refresh per user and kind is in flight, and a failed one is not retried until the backoff has passed,
+     * so a struggling model does not cost a context snapshot on every write.
+     */
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onTransactionChanged(TransactionChangedEvent event) {
+        try {
+            for (AiDigest digest : digestRepository.findByUserId(event.userId())) {
+                if (event.version() - digest.getDigestVersion() >= refreshAfterChanges) {
+                    refreshInBackground(event.userId(), digest.getKind());
+                }
+            }
+        } catch (RuntimeException e) {
+            log.warn("Could not update AI digests for user {}: {}", event.userId(), e.getMessage());
+        }
+    }
+
+    private void refreshInBackground(Long userId, DigestKind kind) {
+        String key = userId + "|" + kind;
+        Instant retryAt = retryAfter.get(key);
+        if (retryAt != null && Instant.now().isBefore(retryAt) || !refreshing.add(key)) {
+            return;
+        }
+        try {
+            refresh(userId, kind).whenComplete((response, error) -> {
+                if (error != null || response == null || "Error".equals(response.getCategory())) {
+                    log.warn("Background refresh of {} digest for user {} failed: {}", kind, userId,
+                            error != null ? error.getMessage() : "model returned an error");
+                    retryAfter.put(key, Instant.now().plus(retryBackoff));
+                } else {
+                    retryAfter.remove(key);
+                }
+                refreshing.remove(key);
+            });
+        } catch (LlmBusyException e) {
+            refreshing.remove(key);
+            log.debug("Skipping background digest refresh for user {}: gateway busy", userId);
+        } catch (RuntimeException e) {
+            refreshing.remove(key);
+            retryAfter.put(key, Instant.now().plus(retryBackoff));
+            throw e;
+        }
+    }
+
+    private boolean needsRefresh(List<AiDigest> digests, DigestKind kind, long version) {
+        return digests.stream()
+                .filter(d -> d.getKind() == kind)
+                .findFirst()
+                .map(d -> d.getDigestVersion() < version || !ollamaService.getModel().equals(d.getModel()))
+                .orElse(true);
+    }
+
+    // Error answers are returned but not stored, so the previous digest stays in place
+    private AIInsightResponse store(Long userId, DigestKind kind, long version, AIInsightResponse response) {
+        if (response == null || "Error".equals(response.getCategory())) {
+            return response;
+        }
+        LocalDateTime now = LocalDateTime.now();
+        digestRepository.upsert(userId, kind.name(), ollamaService.getModel(), response.getInsight(),
+                response.getCategory(), response.getRecommendation(), version, now);
+        response.setGeneratedAt(now);
+        response.setStale(false);
+        return response;
+    }
+
+    private static AIInsightResponse toResponse(AiDigest digest, long version) {
+        return AIInsightResponse.builder()
+                .insight(digest.getInsight())
+                .category(digest.getCategory())
+                .recommendation(digest.getRecommendation())
+                .generatedAt(digest.getGeneratedAt())
+                .stale(digest.getDigestVersion() < version)
+                .build();
+    }
+}
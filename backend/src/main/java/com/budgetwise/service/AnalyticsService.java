@@ -1,12 +1,22 @@
 package com.budgetwise.service;
 
-import com.budgetwise.model.Transaction;
-import com.budgetwise.model.User;
+import com.budgetwise.dto.CategoryTotal;
+import com.budgetwise.dto.SpendingSeriesResponse;
 import com.budgetwise.repository.TransactionRepository;
-import com.budgetwise.repository.UserRepository;
+import com.budgetwise.security.CurrentUserProvider;
 import lombok.RequiredArgsConstructor;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.math.BigDecimal;
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.Period;
+import java.time.temporal.ChronoUnit;
+import java.time.temporal.TemporalAdjusters;
 import java.util.*;
 import java.util.stream.Collectors;
 
@@ -14,64 +24,190 @@ import java.util.stream.Collectors;
 @RequiredArgsConstructor
 public class AnalyticsService {
 
+    private static final int MAX_LIMIT = 100;
+    private static final int MAX_SERIES_POINTS = 500;
+
     private final TransactionRepository transactionRepository;
-    private final UserRepository userRepository;
-
-    public Map<String, Object> getCategorySpendingData(String username) {
-        User user = userRepository.findByUsername(username)
-                .orElseThrow(() -> new RuntimeException("User not found"));
-
-        List<Transaction> expenses = transactionRepository.findByUserAndType(user, "expense");
-        
-        Map<String, Double> categoryTotals = expenses.stream()
-                .collect(Collectors.groupingBy(
-                    Transaction::getCategory,
-                    Collectors.summingDouble(Transaction::getAmount)
-                ));
-
-        List<Map<String, Object>> chartData = categoryTotals.entrySet().stream()
-                .map(entry -> {
-                    Map<String, Object> item = new HashMap<>();
-                    item.put("name", entry.getKey());
-                    item.put("value", entry.getValue());
-                    return item;
-                })
-                .collect(Collectors.toList());
+    private final TransactionSummaryService summaryService;
+    private final CurrentUserProvider currentUserProvider;
 
-        Map<String, Object> result = new HashMap<>();
-        result.put("data", chartData);
-        result.put("total", categoryTotals.values().stream().mapToDouble(Double::doubleValue).sum());
-        result.put("categories", new ArrayList<>(categoryTotals.keySet()));
-        
+    /**
+     * Expense totals per category, largest first. Without a date range the monthly rollup is read;
+     * with one, a single grouped query runs on the transactions table. {@code end} is inclusive.
+     */
+    @Transactional(readOnly = true)
+    public Map<String, Object> getCategorySpendingData(LocalDate start, LocalDate end, Integer limit) {
+        Long userId = currentUserProvider.getCurrentUserId();
+
+        List<CategoryTotal> categoryTotals;
+        if (start == null && end == null) {
+            categoryTotals = summaryService.getCategoryTotals(userId, TransactionSummaryService.EXPENSE);
+            if (limit != null && categoryTotals.size() > normalizeLimit(limit)) {
+                categoryTotals = categoryTotals.subList(0, normalizeLimit(limit));
+            }
+        } else {
+            categoryTotals = transactionRepository.sumByCategory(
+                    userId, TransactionSummaryService.EXPENSE, startOf(start), endOf(end), page(limit));
+        }
+
+        Map<String, Object> result = toChartData(categoryTotals);
+        result.put("categories", categoryTotals.stream().map(CategoryTotal::getCategory).collect(Collectors.toList()));
+        return result;
+    }
+
+    /**
+     * Expense totals per description within one category, largest first.
+     */
+    @Transactional(readOnly = true)
+    public Map<String, Object> getSubcategorySpendingData(String category, LocalDate start, LocalDate end, Integer limit) {
+        Long userId = currentUserProvider.getCurrentUserId();
+
+        List<CategoryTotal> subcategoryTotals = transactionRepository.sumByDescription(
+                userId, TransactionSummaryService.EXPENSE, category, startOf(start), endOf(end), page(limit));
+
+        Map<String, Object> result = toChartData(subcategoryTotals);
+        result.put("category", category);
         return result;
     }
 
-    public Map<String, Object> getSubcategorySpendingData(String username, String category) {
-        User user = userRepository.findByUsername(username)
-                .orElseThrow(() -> new RuntimeException("User not found"));
+    /**
+     * Income and expense totals bucketed by day, week (starting Monday) or month over [start, end].
+     * Months come from the rollup and are always whole months; days and weeks from one grouped query.
+     * Empty buckets are included when {@code fillGaps} is set, and {@code runningBalance} adds the
+     * cumulative net balance, starting from the net of everything before the range.
+     */
+    @Transactional(readOnly = true)
+    public SpendingSeriesResponse getSpendingSeries(LocalDate start, LocalDate end, String granularity,
+                                                    boolean fillGaps, boolean runningBalance) {
+        Long userId = currentUserProvider.getCurrentUserId();
+        String unit = granularity == null ? "month" : granularity.trim().toLowerCase(Locale.ROOT);
+        if (end == null) {
+            end = LocalDate.now();
+        }
+        if (start == null) {
+            start = end.minusYears(1).plusDays(1);
+        }
+        if (start.isAfter(end)) {
+            throw new RuntimeException("Start date must not be after end date");
+        }
+
+        LocalDate firstBucket;
+        ChronoUnit step;
+        switch (unit) {
+            case "day" -> {
+                firstBucket = start;
+                step = ChronoUnit.DAYS;
+            }
+            case "week" -> {
+                firstBucket = start.with(TemporalAdjusters.previousOrSame(DayOfWeek.MONDAY));
+                step = ChronoUnit.WEEKS;
+            }
+            case "month" -> {
+                start = start.withDayOfMonth(1);
+                end = end.with(TemporalAdjusters.lastDayOfMonth());
+                firstBucket = start;
+                step = ChronoUnit.MONTHS;
+            }
+            default -> throw new RuntimeException("Granularity must be day, week or month");
+        }
 
-        List<Transaction> categoryExpenses = transactionRepository.findByUserAndTypeAndCategory(user, "expense", category);
-        
-        Map<String, Double> subcategoryTotals = categoryExpenses.stream()
-                .collect(Collectors.groupingBy(
-                    Transaction::getDescription,
-                    Collectors.summingDouble(Transaction::getAmount)
-                ));
+        long buckets = step.between(firstBucket, end) + 1;
+        if (buckets > MAX_SERIES_POINTS) {
+            throw new RuntimeException("Range has " + buckets + " " + unit + " buckets, at most "
+                    + MAX_SERIES_POINTS + " are allowed; use a shorter range or a coarser granularity");
+        }
 
-        List<Map<String, Object>> chartData = subcategoryTotals.entrySet().stream()
-                .map(entry -> {
+        List<Object[]> rows = switch (unit) {
+            case "day" -> transactionRepository.sumByDay(userId, startOf(start), endOf(end));
+            case "week" -> transactionRepository.sumByWeek(userId, startOf(start), endOf(end));
+            default -> summaryService.getMonthlyTotals(userId, start, end);
+        };
+
+        Map<LocalDate, BigDecimal[]> totals = new TreeMap<>();
+        for (Object[] row : rows) {
+            BigDecimal[] bucket = totals.computeIfAbsent(toLocalDate(row[0]), k -> new BigDecimal[]{BigDecimal.ZERO, BigDecimal.ZERO});
+            int index = TransactionSummaryService.INCOME.equals(row[1]) ? 0 : 1;
+            bucket[index] = bucket[index].add((BigDecimal) row[2]);
+        }
+
+        BigDecimal openingBalance = runningBalance ? summaryService.getNetBefore(userId, start) : null;
+        BigDecimal balance = openingBalance;
+        List<SpendingSeriesResponse.Point> points = new ArrayList<>();
+        Period increment = switch (step) {
+            case DAYS -> Period.ofDays(1);
+            case WEEKS -> Period.ofWeeks(1);
+            default -> Period.ofMonths(1);
+        };
+        Iterable<LocalDate> periods = fillGaps
+                ? firstBucket.datesUntil(end.plusDays(1), increment)::iterator
+                : totals.keySet();
+        for (LocalDate period : periods) {
+            BigDecimal[] bucket = totals.getOrDefault(period, new BigDecimal[]{BigDecimal.ZERO, BigDecimal.ZERO});
+            BigDecimal net = bucket[0].subtract(bucket[1]);
+            if (balance != null) {
+                balance = balance.add(net);
+            }
+            points.add(SpendingSeriesResponse.Point.builder()
+                    .period(period)
+                    .income(bucket[0])
+                    .expense(bucket[1])
+                    .net(net)
+                    .balance(balance)
+                    .build());
+        }
+
+        return SpendingSeriesResponse.builder()
+                .granularity(unit)
+                .start(start)
+                .end(end)
+                .openingBalance(openingBalance)
+                .points(points)
+                .build();
+    }
+
+    private Map<String, Object> toChartData(List<CategoryTotal> totals) {
+        List<Map<String, Object>> chartData = totals.stream()
+                .map(total -> {
                     Map<String, Object> item = new HashMap<>();
-                    item.put("name", entry.getKey());
-                    item.put("value", entry.getValue());
+                    item.put("name", total.getCategory());
+                    item.put("value", total.getTotal());
+                    item.put("count", total.getCount());
                     return item;
                 })
                 .collect(Collectors.toList());
 
         Map<String, Object> result = new HashMap<>();
         result.put("data", chartData);
-        result.put("total", subcategoryTotals.values().stream().mapToDouble(Double::doubleValue).sum());
-        result.put("category", category);
-        
+        result.put("total", totals.stream().map(CategoryTotal::getTotal).reduce(BigDecimal.ZERO, BigDecimal::add));
         return result;
     }
-}
\ No newline at end of file
+
+    private static LocalDate toLocalDate(Object value) {
+        if (value instanceof LocalDate date) {
+            return date;
+        }
+        if (value instanceof java.sql.Date date) {
+            return date.toLocalDate();
+        }
+        if (value instanceof LocalDateTime dateTime) {
+            return dateTime.toLocalDate();
+        }
+        throw new IllegalStateException("Unexpected bucket value: " + value);
+    }
+
+    private static Pageable page(Integer limit) {
+        return limit == null ? Pageable.unpaged() : PageRequest.of(0, normalizeLimit(limit));
+    }
+
+    private static int normalizeLimit(int limit) {
+        return Math.min(Math.max(limit, 1), MAX_LIMIT);
+    }
+
+    private static LocalDateTime startOf(LocalDate start) {
+        return start == null ? null : start.atStartOfDay();
+    }
+
+    private static LocalDateTime endOf(LocalDate end) {
+        return end == null ? null : end.plusDays(1).atStartOfDay();
+    }
+}
@@ -7,11 +7,14 @@ import com.budgetwise.model.Role;
 import com.budgetwise.model.User;
 import com.budgetwise.repository.UserRepository;
 import com.budgetwise.security.JwtTokenProvider;
+import com.budgetwise.security.TokenRevocationService;
 import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
 
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
 
+@Slf4j
 @Service
 @RequiredArgsConstructor
 public class AuthService {
@@ -19,6 +22,7 @@ public class AuthService {
     private final UserRepository userRepository;
     private final PasswordEncoder passwordEncoder;
     private final JwtTokenProvider jwtTokenProvider;
+    private final TokenRevocationService tokenRevocationService;
 
 
     // ---------------- REGISTER ----------------
@@ -83,6 +87,10 @@ public class AuthService {
 
     // ---------------- LOGOUT ----------------
     public void logout(String token) {
-        System.out.println("User logged out successfully with token: " + token);
+        String jwt = token != null && token.startsWith("Bearer ") ? token.substring(7).trim() : token;
+        if (jwt != null && !jwt.isEmpty()) {
+            tokenRevocationService.revoke(jwt);
+        }
+        log.debug("User logged out successfully");
     }
 }
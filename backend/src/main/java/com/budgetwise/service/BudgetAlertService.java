@@ -0,0 +1,254 @@
+package com.budgetwise.service;
+
+import com.budgetwise.dto.BudgetAlert;
+import com.budgetwise.dto.BudgetStatusResponse;
+import com.budgetwise.event.TransactionChangedEvent;
+import com.budgetwise.repository.BudgetRepository;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * Keeps a running spent total per active budget in memory and pushes an alert over SSE when a
+ * committed transaction change takes a budget across 80% or 100% of its limit.
+ * Totals are seeded with one grouped query per user per day; each write then costs O(budgets of the user).
+ */
+@Slf4j
+@Service
+public class BudgetAlertService {
+
+    private static final int[] THRESHOLDS = {80, 100};
+    private static final BigDecimal HUNDRED = BigDecimal.valueOf(100);
+
+    private final BudgetRepository budgetRepository;
+    private final UserDataVersionService versionService;
+    private final TransactionTemplate seedTransaction;
+    private final Cache<Long, UserBudgets> trackers;
+    private final Map<Long, List<SseEmitter>> emitters = new ConcurrentHashMap<>();
+    private final long emitterTimeoutMillis;
+
+    public BudgetAlertService(BudgetRepository budgetRepository,
+                              UserDataVersionService versionService,
+                              PlatformTransactionManager transactionManager,
+                              @Value("${budget.alerts.tracker-ttl-minutes:60}") long trackerTtlMinutes,
+                              @Value("${budget.alerts.max-users:10000}") long maxUsers,
+                              @Value("${budget.alerts.emitter-timeout-ms:1800000}") long emitterTimeoutMillis) {
+        this.budgetRepository = budgetRepository;
+        this.versionService = versionService;
+        // Spent totals and the data version must come from one snapshot; listeners run after the writer's commit
+        this.seedTransaction = new TransactionTemplate(transactionManager);
+        this.seedTransaction.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        this.seedTransaction.setIsolationLevel(TransactionDefinition.ISOLATION_REPEATABLE_READ);
+        this.seedTransaction.setReadOnly(true);
+        this.trackers = Caffeine.newBuilder()
+                .expireAfterAccess(Duration.ofMinutes(trackerTtlMinutes))
+                .maximumSize(maxUsers)
+                .build();
+        this.emitterTimeoutMillis = emitterTimeoutMillis;
+    }
+
+    public SseEmitter subscribe(Long userId) {
+        SseEmitter emitter = new SseEmitter(emitterTimeoutMillis);
+        List<SseEmitter> userEmitters = emitters.computeIfAbsent(userId, id -> new CopyOnWriteArrayList<>());
+        userEmitters.add(emitter);
+        Runnable remove = () -> removeEmitter(userId, emitter);
+        emitter.onCompletion(remove);
+        emitter.onTimeout(remove);
+        emitter.onError(error -> remove.run());
+
+        // Seed now so the first write after subscribing does not pay for it
+        trackersFor(userId);
+        return emitter;
+    }
+
+    // Budgets were created, changed or removed; the next event re-seeds from the database
+    public void invalidate(Long userId) {
+        trackers.invalidate(userId);
+    }
+
+    @TransactionalEventListener
+    public void onTransactionChanged(TransactionChangedEvent event) {
+        try {
+            List<BudgetAlert> alerts = new ArrayList<>();
+            LocalDate today = LocalDate.now();
+            // Seeding and applying run under the user's map entry lock, so two events can neither seed
+            // independently nor apply a delta while another thread is replacing the tracker
+            trackers.asMap().compute(event.userId(), (userId, budgets) -> {
+                UserBudgets current = isCurrent(budgets, today) ? budgets : seed(userId, today);
+                alerts.addAll(current.apply(event));
+                return current;
+            });
+            for (BudgetAlert alert : alerts) {
+                send(event.userId(), alert);
+            }
+        } catch (RuntimeException e) {
+            log.warn("Could not evaluate budget alerts for user {}: {}", event.userId(), e.getMessage());
+        }
+    }
+
+    private void trackersFor(Long userId) {
+        LocalDate today = LocalDate.now();
+        trackers.asMap().compute(userId, (id, budgets) -> isCurrent(budgets, today) ? budgets : seed(id, today));
+    }
+
+    // The set of active budgets changes at midnight, so trackers are valid for the day they were seeded
+    private static boolean isCurrent(UserBudgets budgets, LocalDate today) {
+        return budgets != null && budgets.seededOn().equals(today);
+    }
+
+    // Totals with the data version they include, read in one snapshot
+    private UserBudgets seed(Long userId, LocalDate today) {
+        return seedTransaction.execute(status -> {
+            long version = versionService.current(userId);
+            List<BudgetTracker> list = new ArrayList<>();
+            for (Object[] row : budgetRepository.findActiveWithSpent(userId, today)) {
+                list.add(new BudgetTracker(
+                        ((Number) row[0]).longValue(),
+                        (String) row[1],
+                        (BigDecimal) row[2],
+                        toLocalDate(row[3]),
+                        toLocalDate(row[4]),
+                        (BigDecimal) row[5]));
+            }
+            return new UserBudgets(today, version, list);
+        });
+    }
+
+    private void send(Long userId, BudgetAlert alert) {
+        log.info("Budget alert for user {}: {} reached {}%", userId, alert.getCategory(), alert.getThreshold());
+        List<SseEmitter> userEmitters = emitters.get(userId);
+        if (userEmitters == null) {
+            return;
+        }
+        for (SseEmitter emitter : userEmitters) {
+            try {
+                emitter.send(SseEmitter.event().name("budget-alert").data(alert));
+            } catch (IOException | IllegalStateException e) {
+                removeEmitter(userId, emitter);
+            }
+        }
+    }
+
+    private void removeEmitter(Long userId, SseEmitter emitter) {
+        emitters.computeIfPresent(userId, (id, list) -> {
+            list.remove(emitter);
+            return list.isEmpty() ? null : list;
+        });
+    }
+
+    private static LocalDate toLocalDate(Object value) {
+        return value instanceof java.sql.Date date ? date.toLocalDate() : (LocalDate) value;
+    }
+
+    private record UserBudgets(LocalDate seededOn, long seededVersion, List<BudgetTracker> budgets) {
+
+        /**
+         * Moves each matching budget by the net expense delta of the event. When the seed already includes
+         * the event (its version is not newer than the seed's), the delta is backed out first so the total is
+         * not counted twice and threshold crossings are still seen. Callers hold the user's entry lock.
+         */
+        List<BudgetAlert> apply(TransactionChangedEvent event) {
+            List<BudgetAlert> alerts = new ArrayList<>();
+            for (BudgetTracker budget : budgets) {
+                BigDecimal delta = BigDecimal.ZERO;
+                for (TransactionChangedEvent.Change change : event.changes()) {
+                    delta = delta.add(budget.expenseIn(change.after())).subtract(budget.expenseIn(change.before()));
+                }
+                if (delta.signum() == 0) {
+                    continue;
+                }
+                if (event.version() <= seededVersion) {
+                    budget.spent = budget.spent.subtract(delta);
+                }
+                BudgetAlert alert = budget.add(delta, seededOn);
+                if (alert != null) {
+                    alerts.add(alert);
+                }
+            }
+            return alerts;
+        }
+    }
+
+    private static final class BudgetTracker {
+        private final Long id;
+        private final String category;
+        private final BigDecimal amount;
+        private final LocalDate startDate;
+        private final LocalDate endDate;
+        private BigDecimal spent;
+
+        BudgetTracker(Long id, String category, BigDecimal amount, LocalDate startDate, LocalDate endDate, BigDecimal spent) {
+            this.id = id;
+            this.category = category;
+            this.amount = amount;
+            this.startDate = startDate;
+            this.endDate = endDate;
+            this.spent = spent;
+        }
+
+        // Amount the change books against this budget: expenses in its category dated inside its window.
+        // Categories match ignoring case and surrounding spaces, as the seed query's collation does
+        BigDecimal expenseIn(TransactionChangedEvent.Snapshot change) {
+            if (change == null || change.type() == null
+                    || TransactionSummaryService.INCOME.equalsIgnoreCase(change.type().trim())
+                    || change.category() == null
+                    || !category.trim().equalsIgnoreCase(change.category().trim())) {
+                return BigDecimal.ZERO;
+            }
+            LocalDate day = change.date().toLocalDate();
+            return day.isBefore(startDate) || day.isAfter(endDate) ? BigDecimal.ZERO : change.amount();
+        }
+
+        // Applies a delta and returns an alert when it crosses a threshold upwards
+        BudgetAlert add(BigDecimal delta, LocalDate today) {
+            BigDecimal before = spent;
+            spent = spent.add(delta);
+
+            int crossed = 0;
+            for (int threshold : THRESHOLDS) {
+                if (!reached(before, threshold) && reached(spent, threshold)) {
+                    crossed = threshold;
+                }
+            }
+            if (crossed == 0) {
+                return null;
+            }
+
+            BudgetStatusResponse status = BudgetService.toStatus(id, category, amount, startDate, endDate, spent, today);
+            return BudgetAlert.builder()
+                    .budgetId(id)
+                    .category(category)
+                    .threshold(crossed)
+                    .amount(amount)
+                    .spent(spent)
+                    .percentUsed(status.getPercentUsed())
+                    .status(status.getStatus())
+                    .triggeredAt(LocalDateTime.now())
+                    .build();
+        }
+
+        // Exact, like BudgetService.toStatus: spent * 100 >= amount * threshold, so the alert and its status agree
+        private boolean reached(BigDecimal value, int threshold) {
+            return amount.signum() > 0
+                    && value.multiply(HUNDRED).compareTo(amount.multiply(BigDecimal.valueOf(threshold))) >= 0;
+        }
+    }
+}
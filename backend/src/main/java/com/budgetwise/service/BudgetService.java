@@ -2,33 +2,34 @@ package com.budgetwise.service;
 
 import com.budgetwise.dto.BudgetRequest;
 import com.budgetwise.dto.BudgetResponse;
+import com.budgetwise.dto.BudgetStatusResponse;
 import com.budgetwise.model.Budget;
 import com.budgetwise.model.User;
 import com.budgetwise.repository.BudgetRepository;
-import com.budgetwise.repository.UserRepository;
+import com.budgetwise.security.CurrentUserProvider;
 import lombok.RequiredArgsConstructor;
-import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.math.BigDecimal;
+import java.math.RoundingMode;
 import java.time.LocalDate;
+import java.time.temporal.ChronoUnit;
 import java.util.List;
 import java.util.stream.Collectors;
 
 @Service
 @RequiredArgsConstructor
 public class BudgetService {
-    private final BudgetRepository budgetRepository;
-    private final UserRepository userRepository;
+    private static final BigDecimal HUNDRED = BigDecimal.valueOf(100);
+    private static final BigDecimal WARNING_PERCENT = BigDecimal.valueOf(80);
 
-    private User getCurrentUser() {
-        String identifier = SecurityContextHolder.getContext().getAuthentication().getName();
-        return userRepository.findByUsername(identifier)
-                .or(() -> userRepository.findByEmail(identifier))
-                .orElseThrow(() -> new RuntimeException("User not found"));
-    }
+    private final BudgetRepository budgetRepository;
+    private final CurrentUserProvider currentUserProvider;
+    private final BudgetAlertService budgetAlertService;
 
     public BudgetResponse createBudget(BudgetRequest request) {
-        User user = getCurrentUser();
+        User user = currentUserProvider.getCurrentUserReference();
 
         Budget budget = Budget.builder()
                 .category(request.getCategory())
@@ -39,11 +40,12 @@ public class BudgetService {
                 .build();
 
         budget = budgetRepository.save(budget);
+        budgetAlertService.invalidate(user.getId());
         return mapToResponse(budget);
     }
 
     public List<BudgetResponse> getAllBudgets() {
-        User user = getCurrentUser();
+        User user = currentUserProvider.getCurrentUserReference();
         return budgetRepository.findByUser(user)
                 .stream()
                 .map(this::mapToResponse)
@@ -51,7 +53,7 @@ public class BudgetService {
     }
 
     public List<BudgetResponse> getCurrentBudgets() {
-        User user = getCurrentUser();
+        User user = currentUserProvider.getCurrentUserReference();
         LocalDate now = LocalDate.now();
         return budgetRepository.findByUserAndStartDateLessThanEqualAndEndDateGreaterThanEqual(user, now, now)
                 .stream()
@@ -59,12 +61,78 @@ public class BudgetService {
                 .collect(Collectors.toList());
     }
 
+    /**
+     * Spent, remaining, percent used and projected spend for every budget active today,
+     * computed from one grouped query joining budgets to their transactions.
+     */
+    @Transactional(readOnly = true)
+    public List<BudgetStatusResponse> getBudgetStatus() {
+        return getBudgetStatus(currentUserProvider.getCurrentUserId());
+    }
+
+    @Transactional(readOnly = true)
+    public List<BudgetStatusResponse> getBudgetStatus(Long userId) {
+        LocalDate today = LocalDate.now();
+        return budgetRepository.findActiveWithSpent(userId, today)
+                .stream()
+                .map(row -> toStatus(
+                        ((Number) row[0]).longValue(),
+                        (String) row[1],
+                        (BigDecimal) row[2],
+                        toLocalDate(row[3]),
+                        toLocalDate(row[4]),
+                        (BigDecimal) row[5],
+                        today))
+                .collect(Collectors.toList());
+    }
+
+    public static BudgetStatusResponse toStatus(Long id, String category, BigDecimal amount, LocalDate startDate,
+                                                LocalDate endDate, BigDecimal spent, LocalDate today) {
+        BigDecimal percentUsed = amount.signum() > 0
+                ? spent.multiply(HUNDRED).divide(amount, 1, RoundingMode.HALF_UP)
+                : BigDecimal.ZERO;
+
+        // Linear projection from the days elapsed so far, including today
+        long totalDays = ChronoUnit.DAYS.between(startDate, endDate) + 1;
+        LocalDate asOf = today.isAfter(endDate) ? endDate : today;
+        long elapsedDays = Math.max(ChronoUnit.DAYS.between(startDate, asOf) + 1, 1);
+        BigDecimal projectedSpend = spent.multiply(BigDecimal.valueOf(totalDays))
+                .divide(BigDecimal.valueOf(elapsedDays), 2, RoundingMode.HALF_UP);
+
+        // Thresholds use the exact amounts; percentUsed is rounded for display only
+        String status;
+        if (amount.signum() > 0 && spent.compareTo(amount) >= 0) {
+            status = "EXCEEDED";
+        } else if (amount.signum() > 0 && spent.multiply(HUNDRED).compareTo(amount.multiply(WARNING_PERCENT)) >= 0) {
+            status = "WARNING";
+        } else {
+            status = "ON_TRACK";
+        }
+
+        return BudgetStatusResponse.builder()
+                .id(id)
+                .category(category)
+                .amount(amount)
+                .startDate(startDate)
+                .endDate(endDate)
+                .spent(spent)
+                .remaining(amount.subtract(spent))
+                .percentUsed(percentUsed)
+                .projectedSpend(projectedSpend)
+                .status(status)
+                .build();
+    }
+
+    private static LocalDate toLocalDate(Object value) {
+        return value instanceof java.sql.Date date ? date.toLocalDate() : (LocalDate) value;
+    }
+
     public BudgetResponse updateBudget(Long budgetId, BudgetRequest request) {
-        User user = getCurrentUser();
+        Long userId = currentUserProvider.getCurrentUserId();
         Budget budget = budgetRepository.findById(budgetId)
                 .orElseThrow(() -> new RuntimeException("Budget not found"));
 
-        if (!budget.getUser().getId().equals(user.getId())) {
+        if (!budget.getUser().getId().equals(userId)) {
             throw new RuntimeException("Unauthorized to update this budget");
         }
 
@@ -74,19 +142,21 @@ public class BudgetService {
         budget.setEndDate(request.getEndDate());
 
         budget = budgetRepository.save(budget);
+        budgetAlertService.invalidate(userId);
         return mapToResponse(budget);
     }
 
     public void deleteBudget(Long budgetId) {
-        User user = getCurrentUser();
+        Long userId = currentUserProvider.getCurrentUserId();
         Budget budget = budgetRepository.findById(budgetId)
                 .orElseThrow(() -> new RuntimeException("Budget not found"));
 
-        if (!budget.getUser().getId().equals(user.getId())) {
+        if (!budget.getUser().getId().equals(userId)) {
             throw new RuntimeException("Unauthorized to delete this budget");
         }
 
         budgetRepository.delete(budget);
+        budgetAlertService.invalidate(userId);
     }
 
     private BudgetResponse mapToResponse(Budget budget) {
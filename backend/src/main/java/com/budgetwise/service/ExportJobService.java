@@ -0,0 +1,390 @@
+package com.budgetwise.service;
+
+import com.budgetwise.dto.ExportJobResponse;
+import com.budgetwise.exception.ExportBusyException;
+import com.budgetwise.model.ExportFormat;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.FileSystemResource;
+import org.springframework.core.io.Resource;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Stream;
+
+/**
+ * Runs exports as background jobs so large reports never hold a request thread. A bounded pool renders
+ * each report to a file in the export directory; clients poll the job or subscribe to its SSE progress
+ * events and download the finished file. Finished files are evicted after a TTL, oldest first once the
+ * directory exceeds its disk quota. Jobs live in memory, so files left over from a previous run are removed at startup.
+ */
+@Slf4j
+@Service
+public class ExportJobService {
+
+    private static final DateTimeFormatter DAY = DateTimeFormatter.ofPattern("dd-MM-yyyy");
+    private static final String PARTIAL_SUFFIX = ".part";
+
+    private final ExportService exportService;
+    private final SimpleExportService simpleExportService;
+    private final Path directory;
+    private final int maxActivePerUser;
+    private final Duration ttl;
+    private final long maxDiskBytes;
+    private final long emitterTimeoutMillis;
+    private final ThreadPoolExecutor workers;
+    private final Map<String, ExportJob> jobs = new ConcurrentHashMap<>();
+    private final Timer durationTimer;
+
+    public ExportJobService(ExportService exportService,
+                            SimpleExportService simpleExportService,
+                            MeterRegistry meterRegistry,
+                            @Value("${export.jobs.dir:${java.io.tmpdir}/budgetwise-exports}") String directory,
+                            @Value("${export.jobs.threads:2}") int threads,
+                            @Value("${export.jobs.max-queued:20}") int maxQueued,
+                            @Value("${export.jobs.max-active-per-user:2}") int maxActivePerUser,
+                            @Value("${export.jobs.ttl-minutes:60}") long ttlMinutes,
+                            @Value("${export.jobs.max-disk-mb:512}") long maxDiskMb,
+                            @Value("${export.jobs.emitter-timeout-ms:600000}") long emitterTimeoutMillis) {
+        this.exportService = exportService;
+        this.simpleExportService = simpleExportService;
+        this.directory = Paths.get(directory);
+        this.maxActivePerUser = maxActivePerUser;
+        this.ttl = Duration.ofMinutes(ttlMinutes);
+        this.maxDiskBytes = maxDiskMb * 1024 * 1024;
+        this.emitterTimeoutMillis = emitterTimeoutMillis;
+        AtomicInteger threadCount = new AtomicInteger();
+        this.workers = new ThreadPoolExecutor(threads, threads, 0, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(maxQueued), runnable -> {
+                    Thread thread = new Thread(runnable, "export-worker-" + threadCount.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                });
+
+        Gauge.builder("export.jobs.queue.depth", workers, executor -> executor.getQueue().size())
+                .description("Export jobs waiting for a worker")
+                .register(meterRegistry);
+        this.durationTimer = Timer.builder("export.jobs.duration")
+                .description("Time taken to render an export job")
+                .register(meterRegistry);
+
+        clearDirectory();
+    }
+
+    public ExportJobResponse submit(Long userId, String username, String format, String sections) {
+        ExportFormat exportFormat = ExportFormat.from(format);
+        int totalSections = ExportSnapshotLoader.parseSections(sections).size();
+        if (totalSections == 0) {
+            throw new RuntimeException("No valid export sections requested");
+        }
+
+        ExportJob job;
+        synchronized (this) {
+            long active = jobs.values().stream()
+                    .filter(j -> j.userId.equals(userId) && !j.isFinished())
+                    .count();
+            if (active >= maxActivePerUser) {
+                throw new ExportBusyException("You already have " + active + " exports in progress", retryAfterSeconds());
+            }
+            job = new ExportJob(UUID.randomUUID().toString(), userId, username, exportFormat, sections, totalSections);
+            jobs.put(job.id, job);
+        }
+        try {
+            workers.execute(() -> run(job));
+        } catch (RejectedExecutionException e) {
+            jobs.remove(job.id);
+            throw new ExportBusyException("Too many exports in progress, please try again shortly", retryAfterSeconds());
+        }
+        log.info("Queued {} export {} for user {} (sections: {})", exportFormat, job.id, userId, sections);
+        return job.toResponse(ttl);
+    }
+
+    public ExportJobResponse getJob(Long userId, String id) {
+        return find(userId, id).toResponse(ttl);
+    }
+
+    /**
+     * Sends a "progress" event per section written and a final "completed" or "failed" event, then closes.
+     * Subscribing to a finished job sends its final event straight away.
+     */
+    public SseEmitter subscribe(Long userId, String id) {
+        ExportJob job = find(userId, id);
+        SseEmitter emitter = new SseEmitter(emitterTimeoutMillis);
+        Runnable remove = () -> job.emitters.remove(emitter);
+        emitter.onCompletion(remove);
+        emitter.onTimeout(remove);
+        emitter.onError(error -> remove.run());
+
+        // Under the job's lock so a state change cannot slip between the snapshot and registration
+        synchronized (job) {
+            if (job.isFinished()) {
+                send(job, emitter, job.toResponse(ttl));
+                emitter.complete();
+            } else {
+                job.emitters.add(emitter);
+                send(job, emitter, job.toResponse(ttl));
+            }
+        }
+        return emitter;
+    }
+
+    public ExportDownload download(Long userId, String id) {
+        ExportJob job = find(userId, id);
+        synchronized (job) {
+            if (job.status != Status.COMPLETED) {
+                throw new RuntimeException(job.status == Status.FAILED
+                        ? "Export failed: " + job.error
+                        : "Export is not finished yet");
+            }
+            if (!Files.exists(job.file)) {
+                throw new RuntimeException("Export has expired, please export again");
+            }
+            return new ExportDownload(new FileSystemResource(job.file), job.filename(), job.format.getContentType(), job.sizeBytes);
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${export.jobs.cleanup-interval-ms:60000}")
+    public void evictExpired() {
+        LocalDateTime cutoff = LocalDateTime.now().minus(ttl);
+        int evicted = 0;
+        for (ExportJob job : jobs.values()) {
+            if (job.isFinished() && job.completedAt.isBefore(cutoff)) {
+                evict(job);
+                evicted++;
+            }
+        }
+        evicted += enforceQuota();
+        if (evicted > 0) {
+            log.info("Evicted {} export files", evicted);
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        workers.shutdownNow();
+    }
+
+    private void run(ExportJob job) {
+        job.start();
+        publish(job);
+        long start = System.nanoTime();
+        Path partial = directory.resolve(job.id + job.format.getExtension() + PARTIAL_SUFFIX);
+        try {
+            try (OutputStream out = new BufferedOutputStream(Files.newOutputStream(partial))) {
+                switch (job.format) {
+                    case PDF -> exportService.writePdf(job.userId, job.username, job.sections, out, section -> sectionDone(job));
+                    case CSV -> {
+                        Writer writer = new OutputStreamWriter(out, StandardCharsets.UTF_8);
+                        simpleExportService.writeCsv(job.userId, job.username, job.sections, writer, section -> sectionDone(job));
+                        writer.flush();
+                    }
+                    case HTML -> out.write(simpleExportService.exportToHtml(job.userId, job.username, job.sections,
+                            section -> sectionDone(job)).getBytes(StandardCharsets.UTF_8));
+                }
+            }
+            Path file = directory.resolve(job.id + job.format.getExtension());
+            Files.move(partial, file, StandardCopyOption.ATOMIC_MOVE);
+            job.complete(file, Files.size(file));
+            log.info("Export {} for user {} finished: {} bytes", job.id, job.userId, job.sizeBytes);
+        } catch (Exception e) {
+            deleteQuietly(partial);
+            job.fail(e.getMessage());
+            log.warn("Export {} for user {} failed: {}", job.id, job.userId, e.getMessage());
+        } finally {
+            durationTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        }
+        publish(job);
+        enforceQuota();
+    }
+
+    private void sectionDone(ExportJob job) {
+        job.sectionsDone.incrementAndGet();
+        publish(job);
+    }
+
+    private void publish(ExportJob job) {
+        synchronized (job) {
+            ExportJobResponse response = job.toResponse(ttl);
+            for (SseEmitter emitter : job.emitters) {
+                send(job, emitter, response);
+                if (job.isFinished()) {
+                    emitter.complete();
+                }
+            }
+        }
+    }
+
+    private void send(ExportJob job, SseEmitter emitter, ExportJobResponse response) {
+        String event = switch (job.status) {
+            case COMPLETED -> "completed";
+            case FAILED -> "failed";
+            default -> "progress";
+        };
+        try {
+            emitter.send(SseEmitter.event().name(event).data(response));
+        } catch (IOException | IllegalStateException e) {
+            job.emitters.remove(emitter);
+        }
+    }
+
+    // Oldest finished files go first; the newest one is always kept so a single large report can still be downloaded
+    private synchronized int enforceQuota() {
+        List<ExportJob> completed = jobs.values().stream()
+                .filter(j -> j.status == Status.COMPLETED)
+                .sorted(Comparator.comparing(j -> j.completedAt))
+                .toList();
+        long used = completed.stream().mapToLong(j -> j.sizeBytes).sum();
+        int evicted = 0;
+        for (int i = 0; i < completed.size() - 1 && used > maxDiskBytes; i++) {
+            used -= completed.get(i).sizeBytes;
+            evict(completed.get(i));
+            evicted++;
+        }
+        return evicted;
+    }
+
+    private void evict(ExportJob job) {
+        jobs.remove(job.id);
+        if (job.file != null) {
+            deleteQuietly(job.file);
+        }
+    }
+
+    private ExportJob find(Long userId, String id) {
+        ExportJob job = jobs.get(id);
+        if (job == null || !job.userId.equals(userId)) {
+            throw new RuntimeException("Export job not found");
+        }
+        return job;
+    }
+
+    // Rough wait: one queue's worth of jobs at the average render time, at least a few seconds
+    private long retryAfterSeconds() {
+        double meanSeconds = durationTimer.count() > 0 ? durationTimer.mean(TimeUnit.SECONDS) : 5;
+        long waiting = workers.getQueue().size() + workers.getActiveCount();
+        return Math.max(5, (long) Math.ceil(meanSeconds * waiting / Math.max(1, workers.getMaximumPoolSize())));
+    }
+
+    private void clearDirectory() {
+        try {
+            Files.createDirectories(directory);
+            try (Stream<Path> leftovers = Files.list(directory)) {
+                leftovers.forEach(ExportJobService::deleteQuietly);
+            }
+        } catch (IOException e) {
+            throw new IllegalStateException("Could not prepare export directory " + directory, e);
+        }
+    }
+
+    private static void deleteQuietly(Path path) {
+        try {
+            Files.deleteIfExists(path);
+        } catch (IOException e) {
+            log.warn("Could not delete export file {}: {}", path, e.getMessage());
+        }
+    }
+
+    public record ExportDownload(Resource resource, String filename, String contentType, long sizeBytes) {
+    }
+
+    private enum Status { QUEUED, RUNNING, COMPLETED, FAILED }
+
+    private static final class ExportJob {
+        private final String id;
+        private final Long userId;
+        private final String username;
+        private final ExportFormat format;
+        private final String sections;
+        private final int totalSections;
+        private final LocalDateTime createdAt = LocalDateTime.now();
+        private final AtomicInteger sectionsDone = new AtomicInteger();
+        private final List<SseEmitter> emitters = new CopyOnWriteArrayList<>();
+        private volatile Status status = Status.QUEUED;
+        private volatile LocalDateTime completedAt;
+        private volatile Path file;
+        private volatile long sizeBytes;
+        private volatile String error;
+
+        private ExportJob(String id, Long userId, String username, ExportFormat format, String sections, int totalSections) {
+            this.id = id;
+            this.userId = userId;
+            this.username = username;
+            this.format = format;
+            this.sections = sections;
+            this.totalSections = totalSections;
+        }
+
+        private synchronized void start() {
+            status = Status.RUNNING;
+        }
+
+        private synchronized void complete(Path file, long sizeBytes) {
+            this.file = file;
+            this.sizeBytes = sizeBytes;
+            this.completedAt = LocalDateTime.now();
+            this.status = Status.COMPLETED;
+        }
+
+        private synchronized void fail(String error) {
+            this.error = error;
+            this.completedAt = LocalDateTime.now();
+            this.status = Status.FAILED;
+        }
+
+        private boolean isFinished() {
+            return status == Status.COMPLETED || status == Status.FAILED;
+        }
+
+        private String filename() {
+            return format.getFilenamePrefix() + createdAt.format(DAY) + format.getExtension();
+        }
+
+        private ExportJobResponse toResponse(Duration ttl) {
+            Status current = status;
+            return ExportJobResponse.builder()
+                    .id(id)
+                    .format(format.name().toLowerCase(Locale.ROOT))
+                    .sections(sections)
+                    .status(current.name())
+                    .progress(current == Status.COMPLETED ? 100 : Math.min(99, sectionsDone.get() * 100 / totalSections))
+                    .filename(filename())
+                    .sizeBytes(current == Status.COMPLETED ? sizeBytes : null)
+                    .error(error)
+                    .downloadUrl(current == Status.COMPLETED ? "/api/export/jobs/" + id + "/download" : null)
+                    .createdAt(createdAt)
+                    .completedAt(completedAt)
+                    .expiresAt(completedAt != null ? completedAt.plus(ttl) : null)
+                    .build();
+        }
+    }
+}
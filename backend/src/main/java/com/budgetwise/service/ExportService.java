@@ -1,47 +1,65 @@
 package com.budgetwise.service;
 
-import com.budgetwise.dto.TransactionResponse;
-import com.budgetwise.model.User;
-import com.budgetwise.repository.UserRepository;
+import com.budgetwise.dto.BudgetStatusResponse;
+import com.budgetwise.dto.CategoryTotal;
+import com.budgetwise.dto.ExportSnapshot;
+import com.budgetwise.dto.GoalResponse;
+import com.budgetwise.dto.SummaryTotals;
 import com.itextpdf.text.Document;
 import com.itextpdf.text.DocumentException;
+import com.itextpdf.text.Element;
+import com.itextpdf.text.ExceptionConverter;
+import com.itextpdf.text.Image;
 import com.itextpdf.text.Paragraph;
 import com.itextpdf.text.pdf.PdfWriter;
 import com.itextpdf.text.pdf.PdfPTable;
 import com.itextpdf.text.pdf.PdfPCell;
 import com.itextpdf.text.Font;
 import com.itextpdf.text.BaseColor;
-import com.opencsv.CSVWriter;
 import lombok.RequiredArgsConstructor;
-import org.springframework.security.core.context.SecurityContextHolder;
+import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Service;
 
-import java.io.ByteArrayOutputStream;
-import java.io.StringWriter;
+import java.io.IOException;
+import java.io.OutputStream;
 import java.math.BigDecimal;
 import java.time.format.DateTimeFormatter;
 import java.util.List;
+import java.util.function.Consumer;
 
+@Slf4j
 @Service
 @RequiredArgsConstructor
 public class ExportService {
 
+    private static final int PDF_FLUSH_ROWS = 200;
+    private static final float CHART_WIDTH = 500;
+    private static final float CHART_HEIGHT = 280;
+    private static final DateTimeFormatter DAY = DateTimeFormatter.ofPattern("dd-MM-yyyy");
+
     private final TransactionService transactionService;
-    private final UserRepository userRepository;
+    private final ExportSnapshotLoader snapshotLoader;
+    private final ReportChartService chartService;
+    private final UserDataVersionService versionService;
 
-    private User getCurrentUser() {
-        String identifier = SecurityContextHolder.getContext().getAuthentication().getName();
-        return userRepository.findByUsername(identifier)
-                .or(() -> userRepository.findByEmail(identifier))
-                .orElseThrow(() -> new RuntimeException("User not found"));
+    /**
+     * Writes the PDF report straight to {@code out}: pages are emitted as they fill up and transactions
+     * are read through a cursor, so memory use does not depend on the size of the report.
+     * Takes the user explicitly because it runs outside the request thread.
+     */
+    public void writePdf(Long userId, String username, String sections, OutputStream out) {
+        writePdf(userId, username, sections, out, section -> {
+        });
     }
 
-    public byte[] exportToPdf(String sections) {
+    // As above, calling onSection after each section has been written
+    public void writePdf(Long userId, String username, String sections, OutputStream out, Consumer<String> onSection) {
         try {
-            User user = getCurrentUser();
-            ByteArrayOutputStream baos = new ByteArrayOutputStream();
+            long chartVersion = versionService.current(userId);
+            ExportSnapshot snapshot = snapshotLoader.load(userId, username, sections);
             Document document = new Document();
-            PdfWriter.getInstance(document, baos);
+            PdfWriter writer = PdfWriter.getInstance(document, out);
+            writer.setCloseStream(false);
             document.open();
 
             Font titleFont = new Font(Font.FontFamily.HELVETICA, 18, Font.BOLD);
@@ -50,64 +68,39 @@ public class ExportService {
             Font normalFont = new Font(Font.FontFamily.HELVETICA, 10);
 
             document.add(new Paragraph("BudgetwiseAI - Financial Report", titleFont));
-            document.add(new Paragraph("User: " + user.getUsername(), normalFont));
+            document.add(new Paragraph("User: " + username, normalFont));
             document.add(new Paragraph("Generated: " + java.time.LocalDateTime.now().format(DateTimeFormatter.ofPattern("dd-MM-yyyy HH:mm")), normalFont));
             document.add(new Paragraph(" "));
 
-            String[] sectionArray = sections.split(",");
-            
-            for (String section : sectionArray) {
-                switch (section.trim()) {
-                    case "dashboard":
-                        addDashboardToPdf(document, headerFont, subHeaderFont, normalFont);
-                        break;
-                    case "transactions":
-                        addTransactionsToPdf(document, headerFont, subHeaderFont, normalFont);
-                        break;
-                    case "budgets":
-                        addBudgetsToPdf(document, headerFont, subHeaderFont, normalFont);
-                        break;
-                    case "goals":
-                        addGoalsToPdf(document, headerFont, subHeaderFont, normalFont);
-                        break;
-                    case "ai-insights":
-                        addAIInsightsToPdf(document, headerFont, subHeaderFont, normalFont);
-                        break;
-                    case "all":
-                        addDashboardToPdf(document, headerFont, subHeaderFont, normalFont);
-                        addTransactionsToPdf(document, headerFont, subHeaderFont, normalFont);
-                        addBudgetsToPdf(document, headerFont, subHeaderFont, normalFont);
-                        addGoalsToPdf(document, headerFont, subHeaderFont, normalFont);
-                        addAIInsightsToPdf(document, headerFont, subHeaderFont, normalFont);
-                        break;
+            for (String section : snapshot.getSections()) {
+                switch (section) {
+                    case ExportSnapshotLoader.DASHBOARD -> addDashboardToPdf(document, snapshot, chartVersion, headerFont, subHeaderFont, normalFont);
+                    case ExportSnapshotLoader.TRANSACTIONS -> addTransactionsToPdf(document, snapshot.getUserId(), headerFont, subHeaderFont, normalFont);
+                    case ExportSnapshotLoader.BUDGETS -> addBudgetsToPdf(document, snapshot, headerFont, subHeaderFont, normalFont);
+                    case ExportSnapshotLoader.GOALS -> addGoalsToPdf(document, snapshot, headerFont, subHeaderFont, normalFont);
+                    case ExportSnapshotLoader.AI_INSIGHTS -> addAIInsightsToPdf(document, headerFont, subHeaderFont, normalFont);
+                    default -> {
+                    }
                 }
+                onSection.accept(section);
             }
 
             document.close();
-            return baos.toByteArray();
+            out.flush();
         } catch (Exception e) {
-            System.err.println("PDF generation error: " + e.getMessage());
-            e.printStackTrace();
+            log.error("PDF generation error: {}", e.getMessage(), e);
             throw new RuntimeException("Error generating PDF: " + e.getMessage(), e);
         }
     }
 
-    private void addDashboardToPdf(Document document, Font headerFont, Font subHeaderFont, Font normalFont) throws DocumentException {
+    private void addDashboardToPdf(Document document, ExportSnapshot snapshot, long chartVersion, Font headerFont, Font subHeaderFont, Font normalFont) throws DocumentException {
         document.add(new Paragraph("DASHBOARD SUMMARY", headerFont));
         document.add(new Paragraph(" "));
         
         try {
-            List<TransactionResponse> transactions = transactionService.getUserTransactions();
-            BigDecimal totalIncome = BigDecimal.ZERO;
-            BigDecimal totalExpenses = BigDecimal.ZERO;
-            
-            for (TransactionResponse t : transactions) {
-                if ("INCOME".equalsIgnoreCase(t.getType())) {
-                    totalIncome = totalIncome.add(t.getAmount());
-                } else {
-                    totalExpenses = totalExpenses.add(t.getAmount());
-                }
-            }
+            SummaryTotals totals = snapshot.getTotals();
+            BigDecimal totalIncome = totals.getTotalIncome();
+            BigDecimal totalExpenses = totals.getTotalExpenses();
 
             PdfPTable summaryTable = new PdfPTable(2);
             summaryTable.setWidthPercentage(60);
@@ -120,18 +113,13 @@ public class ExportService {
             summaryTable.addCell(new Paragraph("Net Balance", normalFont));
             summaryTable.addCell(new Paragraph("₹" + totalIncome.subtract(totalExpenses), normalFont));
             summaryTable.addCell(new Paragraph("Total Transactions", normalFont));
-            summaryTable.addCell(new Paragraph(String.valueOf(transactions.size()), normalFont));
+            summaryTable.addCell(new Paragraph(String.valueOf(totals.getTransactionCount()), normalFont));
             
             document.add(summaryTable);
             document.add(new Paragraph(" "));
             
             document.add(new Paragraph("Expense Category Breakdown:", subHeaderFont));
-            java.util.Map<String, BigDecimal> categoryTotals = new java.util.HashMap<>();
-            for (TransactionResponse t : transactions) {
-                if ("EXPENSE".equalsIgnoreCase(t.getType())) {
-                    categoryTotals.merge(t.getCategory(), t.getAmount(), BigDecimal::add);
-                }
-            }
+            List<CategoryTotal> categoryTotals = snapshot.getExpenseCategories();
             
             if (!categoryTotals.isEmpty()) {
                 PdfPTable categoryTable = new PdfPTable(3);
@@ -140,20 +128,28 @@ public class ExportService {
                 categoryTable.addCell(new PdfPCell(new Paragraph("Amount", subHeaderFont)));
                 categoryTable.addCell(new PdfPCell(new Paragraph("Percentage", subHeaderFont)));
                 
-                for (java.util.Map.Entry<String, BigDecimal> entry : categoryTotals.entrySet()) {
+                for (CategoryTotal entry : categoryTotals) {
                     double percentage = totalExpenses.compareTo(BigDecimal.ZERO) > 0 ? 
-                        entry.getValue().divide(totalExpenses, 4, java.math.RoundingMode.HALF_UP).multiply(BigDecimal.valueOf(100)).doubleValue() : 0;
+                        entry.getTotal().divide(totalExpenses, 4, java.math.RoundingMode.HALF_UP).multiply(BigDecimal.valueOf(100)).doubleValue() : 0;
                     
-                    categoryTable.addCell(new Paragraph(entry.getKey(), normalFont));
-                    categoryTable.addCell(new Paragraph("₹" + entry.getValue(), normalFont));
+                    categoryTable.addCell(new Paragraph(entry.getCategory(), normalFont));
+                    categoryTable.addCell(new Paragraph("₹" + entry.getTotal(), normalFont));
                     categoryTable.addCell(new Paragraph(String.format("%.1f%%", percentage), normalFont));
                 }
                 
                 document.add(categoryTable);
+                addChart(document, chartService.categoryPie(snapshot.getUserId(), chartVersion, categoryTotals));
             } else {
                 document.add(new Paragraph("No expense data available.", normalFont));
             }
             
+            byte[] trendChart = chartService.monthlyTrend(snapshot.getUserId(), chartVersion);
+            if (trendChart != null) {
+                document.add(new Paragraph(" "));
+                document.add(new Paragraph("Monthly Trend:", subHeaderFont));
+                addChart(document, trendChart);
+            }
+            
             BigDecimal netBalance = totalIncome.subtract(totalExpenses);
             String healthStatus;
             if (netBalance.compareTo(BigDecimal.ZERO) > 0) {
@@ -174,49 +170,112 @@ public class ExportService {
         document.add(new Paragraph(" "));
     }
 
-    private void addTransactionsToPdf(Document document, Font headerFont, Font subHeaderFont, Font normalFont) throws DocumentException {
+    private void addChart(Document document, byte[] png) throws DocumentException, IOException {
+        if (png == null) {
+            return;
+        }
+        Image image = Image.getInstance(png);
+        image.scaleToFit(CHART_WIDTH, CHART_HEIGHT);
+        image.setAlignment(Element.ALIGN_CENTER);
+        document.add(image);
+    }
+
+    private void addTransactionsToPdf(Document document, Long userId, Font headerFont, Font subHeaderFont, Font normalFont) throws DocumentException {
         document.add(new Paragraph("TRANSACTION DETAILS", headerFont));
         document.add(new Paragraph(" "));
         
-        try {
-            List<TransactionResponse> transactions = transactionService.getUserTransactions();
-            
-            PdfPTable table = new PdfPTable(5);
-            table.setWidthPercentage(100);
-            
-            table.addCell(new PdfPCell(new Paragraph("Date", subHeaderFont)));
-            table.addCell(new PdfPCell(new Paragraph("Description", subHeaderFont)));
-            table.addCell(new PdfPCell(new Paragraph("Category", subHeaderFont)));
-            table.addCell(new PdfPCell(new Paragraph("Type", subHeaderFont)));
-            table.addCell(new PdfPCell(new Paragraph("Amount", subHeaderFont)));
+        // An incomplete table is written out and emptied each time it is added, so rows never pile up
+        PdfPTable table = new PdfPTable(5);
+        table.setWidthPercentage(100);
+        table.setHeaderRows(1);
+        table.setComplete(false);
+        
+        table.addCell(new PdfPCell(new Paragraph("Date", subHeaderFont)));
+        table.addCell(new PdfPCell(new Paragraph("Description", subHeaderFont)));
+        table.addCell(new PdfPCell(new Paragraph("Category", subHeaderFont)));
+        table.addCell(new PdfPCell(new Paragraph("Type", subHeaderFont)));
+        table.addCell(new PdfPCell(new Paragraph("Amount", subHeaderFont)));
 
-            for (TransactionResponse t : transactions) {
-                table.addCell(new Paragraph(t.getDate().format(DateTimeFormatter.ofPattern("dd-MM-yyyy")), normalFont));
+        try {
+            int[] rows = {0};
+            transactionService.forEachTransaction(userId, t -> {
+                table.addCell(new Paragraph(t.getDate().format(DAY), normalFont));
                 table.addCell(new Paragraph(t.getDescription(), normalFont));
                 table.addCell(new Paragraph(t.getCategory(), normalFont));
                 table.addCell(new Paragraph(t.getType(), normalFont));
                 table.addCell(new Paragraph("₹" + t.getAmount(), normalFont));
-            }
-
-            document.add(table);
+                if (++rows[0] % PDF_FLUSH_ROWS == 0) {
+                    try {
+                        document.add(table);
+                    } catch (DocumentException e) {
+                        throw new ExceptionConverter(e);
+                    }
+                }
+            });
         } catch (Exception e) {
             document.add(new Paragraph("Error loading transaction data: " + e.getMessage(), normalFont));
         }
-        
+
+        table.setComplete(true);
+        document.add(table);
         document.add(new Paragraph(" "));
     }
 
-    private void addBudgetsToPdf(Document document, Font headerFont, Font subHeaderFont, Font normalFont) throws DocumentException {
+    private void addBudgetsToPdf(Document document, ExportSnapshot snapshot, Font headerFont, Font subHeaderFont, Font normalFont) throws DocumentException {
         document.add(new Paragraph("BUDGETS", headerFont));
         document.add(new Paragraph(" "));
-        document.add(new Paragraph("Budget management features are available in the app.", normalFont));
+        
+        if (snapshot.getBudgets().isEmpty()) {
+            document.add(new Paragraph("No active budgets.", normalFont));
+        } else {
+            PdfPTable table = new PdfPTable(6);
+            table.setWidthPercentage(100);
+            table.addCell(new PdfPCell(new Paragraph("Category", subHeaderFont)));
+            table.addCell(new PdfPCell(new Paragraph("Period", subHeaderFont)));
+            table.addCell(new PdfPCell(new Paragraph("Budget", subHeaderFont)));
+            table.addCell(new PdfPCell(new Paragraph("Spent", subHeaderFont)));
+            table.addCell(new PdfPCell(new Paragraph("Used", subHeaderFont)));
+            table.addCell(new PdfPCell(new Paragraph("Status", subHeaderFont)));
+            
+            for (BudgetStatusResponse budget : snapshot.getBudgets()) {
+                table.addCell(new Paragraph(budget.getCategory(), normalFont));
+                table.addCell(new Paragraph(budget.getStartDate().format(DAY) + " - " + budget.getEndDate().format(DAY), normalFont));
+                table.addCell(new Paragraph("₹" + budget.getAmount(), normalFont));
+                table.addCell(new Paragraph("₹" + budget.getSpent(), normalFont));
+                table.addCell(new Paragraph(budget.getPercentUsed() + "%", normalFont));
+                table.addCell(new Paragraph(budget.getStatus(), normalFont));
+            }
+            document.add(table);
+        }
         document.add(new Paragraph(" "));
     }
 
-    private void addGoalsToPdf(Document document, Font headerFont, Font subHeaderFont, Font normalFont) throws DocumentException {
+    private void addGoalsToPdf(Document document, ExportSnapshot snapshot, Font headerFont, Font subHeaderFont, Font normalFont) throws DocumentException {
         document.add(new Paragraph("FINANCIAL GOALS", headerFont));
         document.add(new Paragraph(" "));
-        document.add(new Paragraph("Goal tracking features are available in the app.", normalFont));
+        
+        if (snapshot.getGoals().isEmpty()) {
+            document.add(new Paragraph("No financial goals yet.", normalFont));
+        } else {
+            PdfPTable table = new PdfPTable(6);
+            table.setWidthPercentage(100);
+            table.addCell(new PdfPCell(new Paragraph("Goal", subHeaderFont)));
+            table.addCell(new PdfPCell(new Paragraph("Category", subHeaderFont)));
+            table.addCell(new PdfPCell(new Paragraph("Target", subHeaderFont)));
+            table.addCell(new PdfPCell(new Paragraph("Saved", subHeaderFont)));
+            table.addCell(new PdfPCell(new Paragraph("Deadline", subHeaderFont)));
+            table.addCell(new PdfPCell(new Paragraph("Priority", subHeaderFont)));
+            
+            for (GoalResponse goal : snapshot.getGoals()) {
+                table.addCell(new Paragraph(goal.getGoalName(), normalFont));
+                table.addCell(new Paragraph(goal.getCategory(), normalFont));
+                table.addCell(new Paragraph("₹" + goal.getTargetAmount(), normalFont));
+                table.addCell(new Paragraph("₹" + goal.getCurrentAmount(), normalFont));
+                table.addCell(new Paragraph(goal.getDeadline() != null ? goal.getDeadline().format(DAY) : "", normalFont));
+                table.addCell(new Paragraph(goal.getPriority(), normalFont));
+            }
+            document.add(table);
+        }
         document.add(new Paragraph(" "));
     }
 
@@ -229,33 +288,4 @@ public class ExportService {
         document.add(new Paragraph("• Create category-wise budgets based on spending history", normalFont));
         document.add(new Paragraph(" "));
     }
-
-    public String exportToCsv(String sections) {
-        try {
-            List<TransactionResponse> transactions = transactionService.getUserTransactions();
-            
-            StringWriter stringWriter = new StringWriter();
-            CSVWriter csvWriter = new CSVWriter(stringWriter);
-
-            String[] header = {"Date", "Description", "Category", "Type", "Amount", "Payment Method"};
-            csvWriter.writeNext(header);
-
-            for (TransactionResponse t : transactions) {
-                String[] data = {
-                    t.getDate().format(DateTimeFormatter.ofPattern("dd-MM-yyyy HH:mm")),
-                    t.getDescription(),
-                    t.getCategory(),
-                    t.getType(),
-                    t.getAmount().toString(),
-                    t.getPaymentMethod()
-                };
-                csvWriter.writeNext(data);
-            }
-
-            csvWriter.close();
-            return stringWriter.toString();
-        } catch (Exception e) {
-            throw new RuntimeException("Error generating CSV", e);
-        }
-    }
-}
\ No newline at end of file
+}
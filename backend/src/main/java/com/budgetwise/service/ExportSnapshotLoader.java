@@ -0,0 +1,100 @@
+package com.budgetwise.service;
+
+import com.budgetwise.dto.CategoryTotal;
+import com.budgetwise.dto.ExportSnapshot;
+import com.budgetwise.dto.SummaryTotals;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Loads the data shared by all export sections in one read-only transaction: dashboard totals and the
+ * category breakdown come from a single pass over the monthly rollup, budgets and goals from one query each.
+ * Only what the requested sections render is loaded; transaction rows stay on the cursor.
+ */
+@Service
+@RequiredArgsConstructor
+public class ExportSnapshotLoader {
+
+    public static final String DASHBOARD = "dashboard";
+    public static final String TRANSACTIONS = "transactions";
+    public static final String BUDGETS = "budgets";
+    public static final String GOALS = "goals";
+    public static final String AI_INSIGHTS = "ai-insights";
+    private static final List<String> ALL = List.of(DASHBOARD, TRANSACTIONS, BUDGETS, GOALS, AI_INSIGHTS);
+
+    private final TransactionSummaryService summaryService;
+    private final BudgetService budgetService;
+    private final GoalService goalService;
+
+    @Transactional(readOnly = true)
+    public ExportSnapshot load(Long userId, String username, String sections) {
+        List<String> requested = parseSections(sections);
+        ExportSnapshot.ExportSnapshotBuilder snapshot = ExportSnapshot.builder()
+                .userId(userId)
+                .username(username)
+                .generatedAt(LocalDateTime.now())
+                .sections(requested)
+                .expenseCategories(List.of())
+                .budgets(List.of())
+                .goals(List.of());
+
+        if (requested.contains(DASHBOARD)) {
+            loadTotals(userId, snapshot);
+        }
+        if (requested.contains(BUDGETS)) {
+            snapshot.budgets(budgetService.getBudgetStatus(userId));
+        }
+        if (requested.contains(GOALS)) {
+            snapshot.goals(goalService.getGoals(userId));
+        }
+        return snapshot.build();
+    }
+
+    // Sections in request order with "all" expanded; unknown names are ignored as before
+    static List<String> parseSections(String sections) {
+        List<String> requested = new ArrayList<>();
+        for (String section : sections.split(",")) {
+            String name = section.trim();
+            if (name.equals("all")) {
+                requested.addAll(ALL);
+            } else if (ALL.contains(name)) {
+                requested.add(name);
+            }
+        }
+        return requested;
+    }
+
+    private void loadTotals(Long userId, ExportSnapshot.ExportSnapshotBuilder snapshot) {
+        BigDecimal income = BigDecimal.ZERO;
+        BigDecimal expenses = BigDecimal.ZERO;
+        long count = 0;
+        List<CategoryTotal> expenseCategories = new ArrayList<>();
+        // Rows arrive largest first, so the expense breakdown keeps the order of the rollup query
+        for (Object[] row : summaryService.getTypeCategoryTotals(userId)) {
+            BigDecimal amount = (BigDecimal) row[2];
+            long rows = ((Number) row[3]).longValue();
+            if (TransactionSummaryService.INCOME.equals(row[0])) {
+                income = income.add(amount);
+            } else {
+                // Every non-income type counts towards expenses; the breakdown lists the EXPENSE type as the dashboard does
+                expenses = expenses.add(amount);
+                if (TransactionSummaryService.EXPENSE.equals(row[0])) {
+                    expenseCategories.add(new CategoryTotal((String) row[1], amount, rows));
+                }
+            }
+            count += rows;
+        }
+        snapshot.totals(SummaryTotals.builder()
+                        .totalIncome(income)
+                        .totalExpenses(expenses)
+                        .transactionCount(count)
+                        .build())
+                .expenseCategories(expenseCategories);
+    }
+}
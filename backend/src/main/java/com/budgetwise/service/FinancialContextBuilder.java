@@ -0,0 +1,210 @@
+package com.budgetwise.service;
+
+import com.budgetwise.dto.CategoryTotal;
+import com.budgetwise.dto.FinancialSnapshot;
+import com.budgetwise.dto.SummaryTotals;
+import com.budgetwise.dto.TransactionResponse;
+import com.budgetwise.model.Transaction;
+import com.budgetwise.repository.TransactionRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Loads a {@link FinancialSnapshot} from aggregates rather than the raw history (totals, per-category
+ * spend, a monthly trend and a few largest and most recent transactions) and renders it as LLM context.
+ * Rendering adds sections in priority order until the token budget is used, so the prompt stays the
+ * same size for any account.
+ */
+@Slf4j
+@Service
+public class FinancialContextBuilder {
+
+    private static final DateTimeFormatter MONTH = DateTimeFormatter.ofPattern("yyyy-MM");
+    private static final DateTimeFormatter DAY = DateTimeFormatter.ofPattern("dd-MM-yyyy");
+    private static final int CHARS_PER_TOKEN = 4; // rough estimate for English text with numbers
+    private static final int LARGEST_EXPENSES_DAYS = 90;
+
+    private final TransactionSummaryService summaryService;
+    private final TransactionRepository transactionRepository;
+    private final int maxTokens;
+    private final int maxCategories;
+    private final int trendMonths;
+    private final int topTransactions;
+
+    public FinancialContextBuilder(TransactionSummaryService summaryService,
+                                   TransactionRepository transactionRepository,
+                                   @Value("${ai.context.max-tokens:600}") int maxTokens,
+                                   @Value("${ai.context.max-categories:10}") int maxCategories,
+                                   @Value("${ai.context.trend-months:6}") int trendMonths,
+                                   @Value("${ai.context.top-transactions:5}") int topTransactions) {
+        this.summaryService = summaryService;
+        this.transactionRepository = transactionRepository;
+        this.maxTokens = maxTokens;
+        this.maxCategories = maxCategories;
+        this.trendMonths = trendMonths;
+        this.topTransactions = topTransactions;
+    }
+
+    @Transactional(readOnly = true)
+    public FinancialSnapshot snapshot(Long userId) {
+        SummaryTotals totals = summaryService.getTotals(userId);
+        FinancialSnapshot.FinancialSnapshotBuilder snapshot = FinancialSnapshot.builder()
+                .userId(userId)
+                .totalIncome(totals.getTotalIncome())
+                .totalExpenses(totals.getTotalExpenses())
+                .transactionCount(totals.getTransactionCount());
+        if (totals.getTransactionCount() == 0) {
+            return snapshot
+                    .expenseCategories(List.of())
+                    .monthlyTrend(List.of())
+                    .largestExpenses(List.of())
+                    .recentTransactions(List.of())
+                    .build();
+        }
+
+        List<CategoryTotal> categories = summaryService.getCategoryTotals(userId, TransactionSummaryService.EXPENSE);
+        LocalDate since = LocalDate.now().minusDays(LARGEST_EXPENSES_DAYS);
+
+        return snapshot
+                .expenseCategories(categories.size() > maxCategories ? categories.subList(0, maxCategories) : categories)
+                .monthlyTrend(monthlyTrend(userId))
+                .largestExpenses(transactionRepository
+                        .findLargestExpenses(userId, since.atStartOfDay(), PageRequest.of(0, topTransactions))
+                        .stream()
+                        .map(this::toResponse)
+                        .toList())
+                .recentTransactions(transactionRepository
+                        .findPage(userId, null, null, null, null, null, null, null, null, null, PageRequest.of(0, topTransactions))
+                        .stream()
+                        .map(this::toResponse)
+                        .toList())
+                .build();
+    }
+
+    public String render(FinancialSnapshot snapshot) {
+        if (snapshot.isEmpty()) {
+            return "No transaction data available";
+        }
+
+        TokenBudget budget = new TokenBudget(maxTokens * CHARS_PER_TOKEN);
+        StringBuilder context = new StringBuilder();
+
+        BigDecimal netAmount = snapshot.getNetBalance();
+        context.append("FINANCIAL SUMMARY:\n");
+        context.append(String.format("Total Income: ₹%s\n", snapshot.getTotalIncome()));
+        context.append(String.format("Total Expenses: ₹%s\n", snapshot.getTotalExpenses()));
+        context.append(String.format("Net Balance: ₹%s\n", netAmount));
+        context.append(String.format("Transactions: %d\n", snapshot.getTransactionCount()));
+        if (netAmount.compareTo(BigDecimal.ZERO) > 0) {
+            context.append("Status: SURPLUS (Income > Expenses)\n");
+        } else if (netAmount.compareTo(BigDecimal.ZERO) < 0) {
+            context.append("Status: DEFICIT (Expenses > Income)\n");
+        } else {
+            context.append("Status: BALANCED\n");
+        }
+        budget.spend(context.length());
+
+        appendSection(context, budget, "Expenses by Category:", snapshot.getExpenseCategories().stream()
+                .map(category -> String.format("- %s: ₹%s (%d transactions)",
+                        category.getCategory(), category.getTotal(), category.getCount()))
+                .toList());
+        appendSection(context, budget, "Monthly Trend:", snapshot.getMonthlyTrend().stream()
+                .map(month -> String.format("- %s: income ₹%s, expenses ₹%s",
+                        month.getMonth().format(MONTH), month.getIncome(), month.getExpenses()))
+                .toList());
+        appendSection(context, budget, "Largest Expenses (last " + LARGEST_EXPENSES_DAYS + " days):",
+                snapshot.getLargestExpenses().stream().map(FinancialContextBuilder::formatTransaction).toList());
+        appendSection(context, budget, "Recent Transactions:",
+                snapshot.getRecentTransactions().stream().map(FinancialContextBuilder::formatTransaction).toList());
+
+        log.debug("Rendered financial context for user {}: {} characters", snapshot.getUserId(), context.length());
+        return context.toString();
+    }
+
+    private List<FinancialSnapshot.MonthlyTotal> monthlyTrend(Long userId) {
+        LocalDate to = LocalDate.now().withDayOfMonth(1);
+        LocalDate from = to.minusMonths(trendMonths - 1L);
+        Map<LocalDate, BigDecimal[]> months = new TreeMap<>();
+        for (Object[] row : summaryService.getMonthlyTotals(userId, from, to)) {
+            BigDecimal[] month = months.computeIfAbsent((LocalDate) row[0], k -> new BigDecimal[]{BigDecimal.ZERO, BigDecimal.ZERO});
+            int index = TransactionSummaryService.INCOME.equals(row[1]) ? 0 : 1;
+            month[index] = month[index].add((BigDecimal) row[2]);
+        }
+        List<FinancialSnapshot.MonthlyTotal> trend = new ArrayList<>();
+        months.forEach((month, values) -> trend.add(FinancialSnapshot.MonthlyTotal.builder()
+                .month(month)
+                .income(values[0])
+                .expenses(values[1])
+                .build()));
+        return trend;
+    }
+
+    private static String formatTransaction(TransactionResponse transaction) {
+        return String.format("- %s: ₹%s (%s - %s) on %s",
+                transaction.getType(),
+                transaction.getAmount(),
+                transaction.getCategory(),
+                transaction.getDescription(),
+                transaction.getDate().format(DAY));
+    }
+
+    private TransactionResponse toResponse(Transaction transaction) {
+        return TransactionResponse.builder()
+                .id(transaction.getId())
+                .description(transaction.getDescription())
+                .amount(transaction.getAmount())
+                .category(transaction.getCategory())
+                .paymentMethod(transaction.getPaymentMethod())
+                .date(transaction.getDate())
+                .type(transaction.getType())
+                .currency(transaction.getCurrency())
+                .build();
+    }
+
+    // Adds as many lines of a section as still fit in the budget; skips the section when none does
+    private static void appendSection(StringBuilder context, TokenBudget budget, String title, List<String> lines) {
+        if (lines.isEmpty() || !budget.fits(title.length() + 2)) {
+            return;
+        }
+        StringBuilder section = new StringBuilder("\n").append(title).append('\n');
+        int added = 0;
+        for (String line : lines) {
+            if (!budget.fits(section.length() + line.length() + 1)) {
+                break;
+            }
+            section.append(line).append('\n');
+            added++;
+        }
+        if (added > 0) {
+            budget.spend(section.length());
+            context.append(section);
+        }
+    }
+
+    private static final class TokenBudget {
+        private int remainingChars;
+
+        TokenBudget(int chars) {
+            this.remainingChars = chars;
+        }
+
+        boolean fits(int chars) {
+            return chars <= remainingChars;
+        }
+
+        void spend(int chars) {
+            remainingChars -= chars;
+        }
+    }
+}
@@ -2,15 +2,17 @@ package com.budgetwise.service;
 
 import com.budgetwise.dto.GoalRequest;
 import com.budgetwise.dto.GoalResponse;
+import com.budgetwise.event.TransactionChangedEvent;
 import com.budgetwise.model.Goal;
 import com.budgetwise.model.Transaction;
 import com.budgetwise.model.User;
 import com.budgetwise.repository.GoalRepository;
 import com.budgetwise.repository.TransactionRepository;
-import com.budgetwise.repository.UserRepository;
+import com.budgetwise.security.CurrentUserProvider;
 import lombok.RequiredArgsConstructor;
-import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 import java.math.BigDecimal;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
@@ -22,18 +24,14 @@ import java.util.stream.Collectors;
 public class GoalService {
 
     private final GoalRepository goalRepository;
-    private final UserRepository userRepository;
     private final TransactionRepository transactionRepository;
-
-    private User getCurrentUser() {
-        String identifier = SecurityContextHolder.getContext().getAuthentication().getName();
-        return userRepository.findByUsername(identifier)
-                .or(() -> userRepository.findByEmail(identifier))
-                .orElseThrow(() -> new RuntimeException("User not found"));
-    }
+    private final CurrentUserProvider currentUserProvider;
+    private final TransactionSummaryService summaryService;
+    private final ApplicationEventPublisher eventPublisher;
+    private final UserDataVersionService versionService;
 
     public GoalResponse createGoal(GoalRequest request) {
-        User user = getCurrentUser();
+        User user = currentUserProvider.getCurrentUserReference();
 
         Goal goal = Goal.builder()
                 .goalName(request.getGoalName())
@@ -51,8 +49,11 @@ public class GoalService {
     }
 
     public List<GoalResponse> getUserGoals() {
-        User user = getCurrentUser();
-        List<Goal> goals = goalRepository.findByUserIdOrderByCreatedAtDesc(user.getId());
+        return getGoals(currentUserProvider.getCurrentUserId());
+    }
+
+    public List<GoalResponse> getGoals(Long userId) {
+        List<Goal> goals = goalRepository.findByUserIdOrderByCreatedAtDesc(userId);
         return goals.stream()
                 .map(this::mapToResponse)
                 .collect(Collectors.toList());
@@ -62,16 +63,16 @@ public class GoalService {
         Goal goal = goalRepository.findById(id)
                 .orElseThrow(() -> new RuntimeException("Goal not found"));
 
-        User currentUser = getCurrentUser();
-        if (!goal.getUser().getId().equals(currentUser.getId())) {
+        if (!goal.getUser().getId().equals(currentUserProvider.getCurrentUserId())) {
             throw new RuntimeException("Unauthorized to access this goal");
         }
 
         return mapToResponse(goal);
     }
 
+    @Transactional
     public GoalResponse updateGoal(Long id, GoalRequest request) {
-        User user = getCurrentUser();
+        User user = currentUserProvider.getCurrentUserReference();
         Goal goal = goalRepository.findById(id)
                 .orElseThrow(() -> new RuntimeException("Goal not found"));
 
@@ -118,15 +119,17 @@ public class GoalService {
                 .build();
         
         Transaction saved = transactionRepository.save(transaction);
+        summaryService.recordCreated(user.getId(), saved);
+        eventPublisher.publishEvent(TransactionChangedEvent.created(user.getId(), versionService.bump(user.getId()), TransactionChangedEvent.Snapshot.of(saved)));
         System.out.println("Transaction saved with ID: " + saved.getId());
     }
 
     public void deleteGoal(Long id) {
-        User user = getCurrentUser();
+        Long userId = currentUserProvider.getCurrentUserId();
         Goal goal = goalRepository.findById(id)
                 .orElseThrow(() -> new RuntimeException("Goal not found"));
 
-        if (!goal.getUser().getId().equals(user.getId())) {
+        if (!goal.getUser().getId().equals(userId)) {
             throw new RuntimeException("Unauthorized to delete this goal");
         }
 
@@ -0,0 +1,219 @@
+package com.budgetwise.service;
+
+import com.budgetwise.dto.AIInsightResponse;
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.core.async.ByteArrayFeeder;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Incremental parser for one Ollama {@code /api/generate} NDJSON stream. Bytes are fed as they arrive
+ * through Jackson's non-blocking parser, so only the current chunk is ever buffered; each call returns the
+ * decoded text fragments it completed, and the category is tracked on the fly. Not thread-safe: one per generation.
+ */
+public final class InsightStreamParser {
+
+    private static final JsonFactory JSON_FACTORY = new JsonFactory();
+    private static final String[][] CATEGORIES = {
+            {"Saving", "saving", "save"},
+            {"Spending", "spending", "expense"},
+            {"Budget", "budget"},
+            {"Investment", "invest", "sip", "ppf"},
+            {"Debt Management", "debt", "loan"}
+    };
+    private static final int KEYWORD_OVERLAP = 7; // longest keyword minus one, to catch words split across fragments
+    private static final int MAX_ENTITY_LENGTH = 8; // e.g. "&#8217;"
+
+    private final JsonParser parser;
+    private final ByteArrayFeeder feeder;
+    private final StringBuilder text = new StringBuilder();
+    private final boolean[] categoriesSeen = new boolean[CATEGORIES.length];
+    private String keywordTail = "";
+    private String entityCarry = "";
+    private int depth;
+    private String field;
+    private boolean done;
+    private long evalCount;
+    private long evalDurationNanos;
+
+    public InsightStreamParser() {
+        try {
+            this.parser = JSON_FACTORY.createNonBlockingByteArrayParser();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        this.feeder = (ByteArrayFeeder) parser.getNonBlockingInputFeeder();
+    }
+
+    /**
+     * Consumes the next bytes of the stream and returns the text fragments completed by them.
+     * Throws when Ollama reports an error in the stream.
+     */
+    public List<String> feed(byte[] bytes, int offset, int length) {
+        List<String> fragments = new ArrayList<>();
+        try {
+            feeder.feedInput(bytes, offset, offset + length);
+            JsonToken token;
+            while ((token = parser.nextToken()) != null && token != JsonToken.NOT_AVAILABLE) {
+                handle(token, fragments);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Malformed response from Ollama", e);
+        }
+        return fragments;
+    }
+
+    /**
+     * Text held back while waiting for the rest of a split HTML entity; call once the stream has ended.
+     */
+    public String finish() {
+        String rest = decodeHtmlEntities(entityCarry);
+        entityCarry = "";
+        if (!rest.isEmpty()) {
+            append(rest);
+        }
+        return rest;
+    }
+
+    public boolean isDone() {
+        return done;
+    }
+
+    public long getEvalCount() {
+        return evalCount;
+    }
+
+    public long getEvalDurationNanos() {
+        return evalDurationNanos;
+    }
+
+    public boolean isEmpty() {
+        return text.toString().isBlank();
+    }
+
+    public String getCategory() {
+        for (int i = 0; i < CATEGORIES.length; i++) {
+            if (categoriesSeen[i]) {
+                return CATEGORIES[i][0];
+            }
+        }
+        return "General";
+    }
+
+    public String getRecommendation() {
+        // For financial advice, keep the full response as insight and provide a generic recommendation
+        return text.length() > 50
+                ? "Review and implement these financial strategies for better money management."
+                : "Consider these suggestions for improved financial health.";
+    }
+
+    public AIInsightResponse toResponse() {
+        return AIInsightResponse.builder()
+                .insight(text.toString().trim())
+                .category(getCategory())
+                .recommendation(getRecommendation())
+                .build();
+    }
+
+    // Category of a complete text, by the same rules as the streamed one
+    public static String categoryOf(String text) {
+        InsightStreamParser parser = new InsightStreamParser();
+        parser.append(text);
+        return parser.getCategory();
+    }
+
+    private void handle(JsonToken token, List<String> fragments) throws IOException {
+        switch (token) {
+            case START_OBJECT, START_ARRAY -> depth++;
+            case END_OBJECT, END_ARRAY -> depth--;
+            case FIELD_NAME -> {
+                if (depth == 1) {
+                    field = parser.currentName();
+                }
+            }
+            default -> {
+                // Only top-level fields of each chunk matter; the token context array of the last chunk is skipped
+                if (depth != 1 || field == null) {
+                    return;
+                }
+                switch (field) {
+                    case "response" -> {
+                        String fragment = decodeFragment(parser.getText());
+                        if (!fragment.isEmpty()) {
+                            append(fragment);
+                            fragments.add(fragment);
+                        }
+                    }
+                    case "done" -> done = token == JsonToken.VALUE_TRUE;
+                    case "eval_count" -> evalCount = parser.getLongValue();
+                    case "eval_duration" -> evalDurationNanos = parser.getLongValue();
+                    case "error" -> throw new IllegalStateException("Ollama error: " + parser.getText());
+                    default -> {
+                    }
+                }
+            }
+        }
+    }
+
+    private void append(String fragment) {
+        text.append(fragment);
+        String window = keywordTail + fragment.toLowerCase(Locale.ROOT);
+        for (int i = 0; i < CATEGORIES.length; i++) {
+            if (categoriesSeen[i]) {
+                continue;
+            }
+            for (int k = 1; k < CATEGORIES[i].length; k++) {
+                if (window.contains(CATEGORIES[i][k])) {
+                    categoriesSeen[i] = true;
+                    break;
+                }
+            }
+        }
+        keywordTail = window.substring(Math.max(0, window.length() - KEYWORD_OVERLAP));
+    }
+
+    // Holds back a trailing "&..." that may be the start of an entity completed by the next fragment
+    private String decodeFragment(String fragment) {
+        String pending = entityCarry + fragment;
+        int amp = pending.lastIndexOf('&');
+        if (amp >= 0 && pending.indexOf(';', amp) < 0 && pending.length() - amp < MAX_ENTITY_LENGTH) {
+            entityCarry = pending.substring(amp);
+            pending = pending.substring(0, amp);
+        } else {
+            entityCarry = "";
+        }
+        return decodeHtmlEntities(pending);
+    }
+
+    static String decodeHtmlEntities(String text) {
+        if (text == null || text.indexOf('&') < 0) return text;
+
+        return text
+            // Named entities
+            .replace("&gt;", ">")
+            .replace("&lt;", "<")
+            .replace("&amp;", "&")
+            .replace("&quot;", "\"")
+            .replace("&apos;", "'")
+            .replace("&nbsp;", " ")
+            // Numeric entities
+            .replace("&#39;", "'")
+            .replace("&#x27;", "'")
+            .replace("&#34;", "\"")
+            .replace("&#x22;", "\"")
+            .replace("&#38;", "&")
+            .replace("&#60;", "<")
+            .replace("&#62;", ">")
+            // Common numeric codes
+            .replace("&#8217;", "'")
+            .replace("&#8220;", "\"")
+            .replace("&#8221;", "\"")
+            .replace("&#8230;", "...");
+    }
+}
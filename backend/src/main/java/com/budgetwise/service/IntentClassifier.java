@@ -0,0 +1,201 @@
+package com.budgetwise.service;
+
+import com.budgetwise.dto.IntentMatch;
+import com.budgetwise.dto.QueryIntent;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Classifies AI queries so rule-based answers are served without calling the model. All phrases of all
+ * rules are compiled once into a word trie; a query is tokenised on word boundaries and matched in a
+ * single pass, so "hi" no longer matches inside "this" and the cost does not grow with the rule count.
+ */
+@Slf4j
+@Service
+public class IntentClassifier {
+
+    private static final List<String> FINANCIAL_TERMS = List.of(
+            "money", "budget", "budgeting", "save", "saving", "saved", "invest", "investing", "investment",
+            "invested", "expense", "spend", "spending", "spent", "overspending", "income", "salary", "financial",
+            "finance", "bank", "loan", "debt", "credit", "fund", "sip", "ppf", "fd", "mutual", "stock", "tax",
+            "insurance", "emergency", "retirement", "cost", "price", "rupee", "₹", "account", "transaction",
+            "payment", "cash", "wealth", "category", "analysis", "analyze", "plan", "planning", "advice", "tip",
+            "help", "manage", "optimize");
+
+    static final List<IntentRule> DEFAULT_RULES = List.of(
+            IntentRule.of(QueryIntent.CATEGORY_SPENDING, 50, "category", "categories")
+                    .and("spending", "spend", "spent", "expense"),
+            IntentRule.of(QueryIntent.OVERSPENDING, 40, "spending too much", "spend too much", "overspending"),
+            IntentRule.of(QueryIntent.OVERSPENDING, 40, "where").and("spending", "spend"),
+            IntentRule.of(QueryIntent.SAVING_PLAN, 30, "saving plan", "save money", "how to save", "how can i save"),
+            IntentRule.of(QueryIntent.INVESTMENT, 20, "invest", "investing", "investment", "sip", "mutual fund", "ppf"),
+            IntentRule.of(QueryIntent.BUDGET_PLAN, 10, "budget", "budgeting", "monthly plan"),
+            IntentRule.of(QueryIntent.GREETING, 0, "hi", "hello", "hey"));
+
+    private final TrieNode root = new TrieNode();
+    private final List<CompiledRule> rules = new ArrayList<>();
+    private final BitSet financialPhrases = new BitSet();
+    private int phraseCount;
+
+    public IntentClassifier(ObjectProvider<IntentRule> extraRules) {
+        Map<String, Integer> phraseIds = new HashMap<>();
+        for (String term : FINANCIAL_TERMS) {
+            financialPhrases.set(phraseId(phraseIds, term));
+        }
+        List<IntentRule> all = new ArrayList<>(DEFAULT_RULES);
+        extraRules.orderedStream().forEach(all::add);
+        for (IntentRule rule : all) {
+            List<BitSet> groups = new ArrayList<>();
+            for (List<String> group : rule.groups()) {
+                BitSet ids = new BitSet();
+                group.forEach(phrase -> ids.set(phraseId(phraseIds, phrase)));
+                groups.add(ids);
+            }
+            rules.add(new CompiledRule(rule.intent(), rule.priority(), groups));
+        }
+        // Stable sort keeps declaration order among equal priorities
+        rules.sort((a, b) -> Integer.compare(b.priority, a.priority));
+        log.info("Intent classifier compiled {} rules over {} phrases", rules.size(), phraseCount);
+    }
+
+    public IntentMatch classify(String query) {
+        List<String> tokens = tokenize(query);
+        if (tokens.isEmpty()) {
+            return new IntentMatch(QueryIntent.OFF_TOPIC, 1.0);
+        }
+
+        // One pass: from each token, follow the trie as far as the phrase continues
+        BitSet matched = new BitSet(phraseCount);
+        int[] phraseStart = new int[phraseCount];
+        int[] phraseEnd = new int[phraseCount];
+        for (int start = 0; start < tokens.size(); start++) {
+            TrieNode node = root;
+            for (int end = start; end < tokens.size() && node != null; end++) {
+                node = node.children.get(tokens.get(end));
+                if (node != null && node.phraseId >= 0 && !matched.get(node.phraseId)) {
+                    matched.set(node.phraseId);
+                    phraseStart[node.phraseId] = start;
+                    phraseEnd[node.phraseId] = end + 1;
+                }
+            }
+        }
+
+        CompiledRule greeting = null;
+        for (CompiledRule rule : rules) {
+            if (!rule.matches(matched)) {
+                continue;
+            }
+            if (rule.intent == QueryIntent.GREETING) {
+                greeting = rule;
+                continue;
+            }
+            if (!matched.intersects(financialPhrases)) {
+                break;
+            }
+            return match(rule.intent, rule.coverage(matched, phraseStart, phraseEnd, tokens.size()));
+        }
+        if (greeting != null) {
+            return match(QueryIntent.GREETING, greeting.coverage(matched, phraseStart, phraseEnd, tokens.size()));
+        }
+        if (!matched.intersects(financialPhrases)) {
+            return new IntentMatch(QueryIntent.OFF_TOPIC, 1.0);
+        }
+        // Financial but no rule fits: the model answers; confidence says how much of the query was recognised
+        BitSet financial = (BitSet) matched.clone();
+        financial.and(financialPhrases);
+        return new IntentMatch(QueryIntent.GENERAL, covered(financial, phraseStart, phraseEnd, tokens.size()));
+    }
+
+    private static IntentMatch match(QueryIntent intent, double coverage) {
+        return new IntentMatch(intent, 0.5 + 0.5 * coverage);
+    }
+
+    private int phraseId(Map<String, Integer> phraseIds, String phrase) {
+        return phraseIds.computeIfAbsent(phrase, p -> {
+            TrieNode node = root;
+            for (String token : tokenize(p)) {
+                node = node.children.computeIfAbsent(token, t -> new TrieNode());
+            }
+            node.phraseId = phraseCount;
+            return phraseCount++;
+        });
+    }
+
+    // Lowercase words and digits; "₹" is a word of its own; everything else separates words
+    static List<String> tokenize(String text) {
+        List<String> tokens = new ArrayList<>();
+        if (text == null) {
+            return tokens;
+        }
+        StringBuilder word = new StringBuilder();
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            if (Character.isLetterOrDigit(c)) {
+                word.append(Character.toLowerCase(c));
+                continue;
+            }
+            flush(word, tokens);
+            if (c == '₹') {
+                tokens.add("₹");
+            }
+        }
+        flush(word, tokens);
+        return tokens;
+    }
+
+    // Plurals match their singular form: "expenses" -> "expense", "savings" -> "saving"
+    private static void flush(StringBuilder word, List<String> tokens) {
+        if (word.isEmpty()) {
+            return;
+        }
+        String token = word.toString();
+        if (token.length() > 3 && token.endsWith("s") && !token.endsWith("ss")) {
+            token = token.substring(0, token.length() - 1);
+        }
+        tokens.add(token);
+        word.setLength(0);
+    }
+
+    private static double covered(BitSet phrases, int[] phraseStart, int[] phraseEnd, int tokenCount) {
+        BitSet tokens = new BitSet(tokenCount);
+        for (int id = phrases.nextSetBit(0); id >= 0; id = phrases.nextSetBit(id + 1)) {
+            tokens.set(phraseStart[id], phraseEnd[id]);
+        }
+        return (double) tokens.cardinality() / tokenCount;
+    }
+
+    private static final class TrieNode {
+        private final Map<String, TrieNode> children = new HashMap<>();
+        private int phraseId = -1;
+    }
+
+    private record CompiledRule(QueryIntent intent, int priority, List<BitSet> groups) {
+
+        boolean matches(BitSet matched) {
+            for (BitSet group : groups) {
+                if (!group.intersects(matched)) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        // Share of the query's words explained by this rule's phrases
+        double coverage(BitSet matched, int[] phraseStart, int[] phraseEnd, int tokenCount) {
+            BitSet used = new BitSet();
+            for (BitSet group : groups) {
+                BitSet hit = (BitSet) group.clone();
+                hit.and(matched);
+                used.or(hit);
+            }
+            return covered(used, phraseStart, phraseEnd, tokenCount);
+        }
+    }
+}
@@ -0,0 +1,23 @@
+package com.budgetwise.service;
+
+import com.budgetwise.dto.QueryIntent;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * One way of recognising an intent: every group must match at least one of its phrases, as whole words.
+ * Higher priority wins when several rules match. Declare extra rules as beans to extend the classifier.
+ */
+public record IntentRule(QueryIntent intent, int priority, List<List<String>> groups) {
+
+    public static IntentRule of(QueryIntent intent, int priority, String... anyOf) {
+        return new IntentRule(intent, priority, List.of(List.of(anyOf)));
+    }
+
+    public IntentRule and(String... anyOf) {
+        List<List<String>> combined = new ArrayList<>(groups);
+        combined.add(List.of(anyOf));
+        return new IntentRule(intent, priority, List.copyOf(combined));
+    }
+}
@@ -0,0 +1,238 @@
+package com.budgetwise.service;
+
+import com.budgetwise.exception.LlmBusyException;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+/**
+ * Admission control in front of the local LLM. At most {@code max-concurrent} generations run at once;
+ * the rest wait in per-user queues served round-robin, so one user's burst cannot starve others.
+ * When the queue is full the request is shed with {@link LlmBusyException} (429 + Retry-After), and
+ * identical requests already in flight share one generation instead of queueing again.
+ */
+@Slf4j
+@Service
+public class LlmGateway {
+
+    private final int maxConcurrent;
+    private final int maxQueued;
+    private final int maxQueuedPerUser;
+    private final ExecutorService workers;
+
+    // All scheduling state below is guarded by this
+    private final Map<Long, Deque<Job>> queues = new HashMap<>();
+    private final Deque<Long> turnOrder = new ArrayDeque<>();
+    private final Map<String, CompletableFuture<?>> inFlight = new HashMap<>();
+    private int running;
+    private int queued;
+
+    private final AtomicInteger queueDepth = new AtomicInteger();
+    private final Timer waitTimer;
+    private final Timer executionTimer;
+    private final Counter rejections;
+    private final Counter coalesced;
+
+    public LlmGateway(@Value("${ai.gateway.max-concurrent:2}") int maxConcurrent,
+                      @Value("${ai.gateway.max-queued:50}") int maxQueued,
+                      @Value("${ai.gateway.max-queued-per-user:3}") int maxQueuedPerUser,
+                      MeterRegistry meterRegistry) {
+        this.maxConcurrent = maxConcurrent;
+        this.maxQueued = maxQueued;
+        this.maxQueuedPerUser = maxQueuedPerUser;
+        AtomicInteger threadCount = new AtomicInteger();
+        this.workers = Executors.newFixedThreadPool(maxConcurrent, runnable -> {
+            Thread thread = new Thread(runnable, "llm-worker-" + threadCount.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+
+        Gauge.builder("ai.gateway.queue.depth", queueDepth, AtomicInteger::get)
+                .description("AI requests waiting for an LLM slot")
+                .register(meterRegistry);
+        this.waitTimer = Timer.builder("ai.gateway.wait")
+                .description("Time AI requests spend queued before the LLM starts on them")
+                .publishPercentiles(0.5, 0.95)
+                .register(meterRegistry);
+        this.executionTimer = Timer.builder("ai.gateway.execution")
+                .description("Time an admitted AI request holds an LLM slot")
+                .register(meterRegistry);
+        this.rejections = Counter.builder("ai.gateway.rejected")
+                .description("AI requests shed because the queue was full")
+                .register(meterRegistry);
+        this.coalesced = Counter.builder("ai.gateway.coalesced")
+                .description("AI requests served by an identical request already in flight")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Runs blocking LLM work once admitted. A request with the same {@code key} as one queued or running
+     * gets that request's future instead of a new generation.
+     */
+    @SuppressWarnings("unchecked")
+    public synchronized <T> CompletableFuture<T> submit(Long userId, String key, Supplier<T> work) {
+        CompletableFuture<T> existing = (CompletableFuture<T>) inFlight.get(key);
+        if (existing != null) {
+            coalesced.increment();
+            return existing;
+        }
+
+        CompletableFuture<T> result = new CompletableFuture<>();
+        Job job = new Job(userId, () -> workers.execute(() -> {
+            long start = System.nanoTime();
+            try {
+                result.complete(work.get());
+            } catch (RuntimeException e) {
+                result.completeExceptionally(e);
+            } finally {
+                executionTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+                release();
+            }
+        }));
+        enqueue(job);
+        inFlight.put(key, result);
+        result.whenComplete((value, error) -> removeInFlight(key, result));
+        dispatch();
+        return result;
+    }
+
+    /**
+     * Admits a streamed generation. The request is queued immediately (so a full queue fails fast)
+     * and the stream starts once a slot is free; the slot is held until the stream ends or is cancelled.
+     */
+    public <T> Flux<T> stream(Long userId, Supplier<Flux<T>> work) {
+        CompletableFuture<Void> admitted = new CompletableFuture<>();
+        Job job = new Job(userId, () -> admitted.complete(null));
+        synchronized (this) {
+            enqueue(job);
+            dispatch();
+        }
+        long[] start = new long[1];
+        // The future completes with null, so the Mono is empty: take the start time when the stream is built
+        return Mono.fromFuture(admitted)
+                .thenMany(Flux.defer(() -> {
+                    start[0] = System.nanoTime();
+                    return work.get();
+                }))
+                .doFinally(signal -> {
+                    if (start[0] != 0) {
+                        executionTimer.record(System.nanoTime() - start[0], TimeUnit.NANOSECONDS);
+                    }
+                    cancelOrRelease(job);
+                });
+    }
+
+    private void enqueue(Job job) {
+        Deque<Job> userQueue = queues.get(job.userId);
+        int userQueued = userQueue == null ? 0 : userQueue.size();
+        boolean slotFree = running < maxConcurrent && queued == 0;
+        if (!slotFree && (queued >= maxQueued || userQueued >= maxQueuedPerUser)) {
+            rejections.increment();
+            throw new LlmBusyException("The AI assistant is busy right now. Please try again shortly.", retryAfterSeconds());
+        }
+        if (userQueue == null) {
+            userQueue = new ArrayDeque<>();
+            queues.put(job.userId, userQueue);
+            turnOrder.addLast(job.userId);
+        }
+        userQueue.addLast(job);
+        queued++;
+        queueDepth.set(queued);
+    }
+
+    // Starts queued jobs while slots are free, taking one job per user in turn
+    private synchronized void dispatch() {
+        while (running < maxConcurrent && !turnOrder.isEmpty()) {
+            Long userId = turnOrder.pollFirst();
+            Deque<Job> userQueue = queues.get(userId);
+            Job job = userQueue.pollFirst();
+            if (userQueue.isEmpty()) {
+                queues.remove(userId);
+            } else {
+                turnOrder.addLast(userId);
+            }
+            queued--;
+            queueDepth.set(queued);
+            running++;
+            job.state = JobState.RUNNING;
+            waitTimer.record(System.nanoTime() - job.enqueuedNanos, TimeUnit.NANOSECONDS);
+            try {
+                job.onAdmit.run();
+            } catch (RuntimeException e) {
+                log.error("Could not start LLM job: {}", e.getMessage());
+                job.state = JobState.DONE;
+                running--;
+            }
+        }
+    }
+
+    private synchronized void release() {
+        running--;
+        dispatch();
+    }
+
+    private synchronized void cancelOrRelease(Job job) {
+        if (job.state == JobState.QUEUED) {
+            Deque<Job> userQueue = queues.get(job.userId);
+            if (userQueue != null && userQueue.remove(job)) {
+                queued--;
+                queueDepth.set(queued);
+                if (userQueue.isEmpty()) {
+                    queues.remove(job.userId);
+                    turnOrder.remove(job.userId);
+                }
+            }
+        } else if (job.state == JobState.RUNNING) {
+            release();
+        }
+        job.state = JobState.DONE;
+    }
+
+    private synchronized void removeInFlight(String key, CompletableFuture<?> future) {
+        inFlight.remove(key, future);
+    }
+
+    // Rough wait estimate: queued work divided across the slots, at the average generation time
+    private long retryAfterSeconds() {
+        double meanSeconds = executionTimer.count() == 0 ? 10 : executionTimer.mean(TimeUnit.SECONDS);
+        double estimate = Math.ceil((queued + 1) * meanSeconds / Math.max(maxConcurrent, 1));
+        return Math.max(1, Math.min((long) estimate, 300));
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        workers.shutdownNow();
+    }
+
+    private enum JobState { QUEUED, RUNNING, DONE }
+
+    private static final class Job {
+        private final Long userId;
+        private final Runnable onAdmit;
+        private final long enqueuedNanos = System.nanoTime();
+        private JobState state = JobState.QUEUED;
+
+        Job(Long userId, Runnable onAdmit) {
+            this.userId = userId;
+            this.onAdmit = onAdmit;
+        }
+    }
+}
@@ -0,0 +1,135 @@
+package com.budgetwise.service;
+
+import com.budgetwise.dto.QueryIntent;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.util.EnumSet;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Picks the Ollama model for a prompt: the small model by default, the large one for long queries,
+ * large prompts, configured intents or configured topics. Records latency and token throughput per model
+ * so the thresholds can be tuned. With both models set to the same name routing is a no-op.
+ */
+@Slf4j
+@Service
+public class ModelRouter {
+
+    private final String smallModel;
+    private final String largeModel;
+    private final Set<QueryIntent> largeIntents = EnumSet.noneOf(QueryIntent.class);
+    private final Set<String> largeTopics = new HashSet<>();
+    private final int maxSmallQueryWords;
+    private final int maxSmallPromptChars;
+    private final IntentClassifier intentClassifier;
+    private final MeterRegistry meterRegistry;
+
+    public ModelRouter(@Value("${ai.routing.small-model:${ollama.model}}") String smallModel,
+                       @Value("${ai.routing.large-model:${ollama.model}}") String largeModel,
+                       @Value("${ai.routing.large-intents:}") List<String> largeIntents,
+                       @Value("${ai.routing.large-topics:}") List<String> largeTopics,
+                       @Value("${ai.routing.max-small-query-words:30}") int maxSmallQueryWords,
+                       @Value("${ai.routing.max-small-prompt-chars:3000}") int maxSmallPromptChars,
+                       IntentClassifier intentClassifier,
+                       MeterRegistry meterRegistry) {
+        this.smallModel = smallModel;
+        this.largeModel = largeModel;
+        for (String intent : largeIntents) {
+            if (!intent.isBlank()) {
+                this.largeIntents.add(QueryIntent.valueOf(intent.trim().toUpperCase()));
+            }
+        }
+        for (String topic : largeTopics) {
+            this.largeTopics.addAll(IntentClassifier.tokenize(topic));
+        }
+        this.maxSmallQueryWords = maxSmallQueryWords;
+        this.maxSmallPromptChars = maxSmallPromptChars;
+        this.intentClassifier = intentClassifier;
+        this.meterRegistry = meterRegistry;
+        log.info("Model routing: small={}, large={}, large intents={}, large topics={}",
+                smallModel, largeModel, this.largeIntents, this.largeTopics);
+    }
+
+    public String route(String query, String prompt) {
+        String reason = escalationReason(query, prompt);
+        String model = reason == null ? smallModel : largeModel;
+        Counter.builder("ai.model.routed")
+                .description("AI generations routed to each model")
+                .tag("model", model)
+                .tag("reason", reason == null ? "default" : reason)
+                .register(meterRegistry)
+                .increment();
+        log.debug("Routed query to {} ({})", model, reason == null ? "default" : reason);
+        return model;
+    }
+
+    // The model to retry on when the given one failed, or null when there is nothing larger
+    public String escalationModel(String model) {
+        return model.equals(smallModel) && !smallModel.equals(largeModel) ? largeModel : null;
+    }
+
+    public List<String> models() {
+        return smallModel.equals(largeModel) ? List.of(smallModel) : List.of(smallModel, largeModel);
+    }
+
+    // Identifies the routing setup; changes whenever either model does
+    public String signature() {
+        return String.join("+", models());
+    }
+
+    /**
+     * Records one finished generation. Ollama's eval_count and eval_duration (nanoseconds) from the
+     * final chunk give the generation throughput; they are zero when the stream ended early.
+     */
+    public void recordGeneration(String model, long latencyNanos, long tokens, long evalNanos) {
+        Timer.builder("ai.model.latency")
+                .description("End-to-end duration of a generation per model")
+                .tag("model", model)
+                .publishPercentiles(0.5, 0.95)
+                .register(meterRegistry)
+                .record(latencyNanos, TimeUnit.NANOSECONDS);
+        if (tokens > 0 && evalNanos > 0) {
+            DistributionSummary.builder("ai.model.tokens_per_second")
+                    .description("Generation throughput per model")
+                    .tag("model", model)
+                    .register(meterRegistry)
+                    .record(tokens * 1_000_000_000d / evalNanos);
+            Counter.builder("ai.model.tokens")
+                    .description("Tokens generated per model")
+                    .tag("model", model)
+                    .register(meterRegistry)
+                    .increment(tokens);
+        }
+    }
+
+    private String escalationReason(String query, String prompt) {
+        if (smallModel.equals(largeModel)) {
+            return null;
+        }
+        List<String> words = IntentClassifier.tokenize(query);
+        if (words.size() > maxSmallQueryWords) {
+            return "query_length";
+        }
+        if (prompt != null && prompt.length() > maxSmallPromptChars) {
+            return "prompt_length";
+        }
+        if (!largeIntents.isEmpty() && largeIntents.contains(intentClassifier.classify(query).getIntent())) {
+            return "intent";
+        }
+        for (String word : words) {
+            if (largeTopics.contains(word)) {
+                return "topic";
+            }
+        }
+        return null;
+    }
+}
@@ -1,90 +1,100 @@
 package com.budgetwise.service;
 
-import com.budgetwise.dto.AIInsightRequest;
 import com.budgetwise.dto.AIInsightResponse;
-import com.fasterxml.jackson.databind.JsonNode;
-import com.fasterxml.jackson.databind.ObjectMapper;
+import com.budgetwise.dto.CategoryTotal;
+import com.budgetwise.dto.FinancialSnapshot;
+import com.budgetwise.dto.IntentMatch;
+import com.budgetwise.dto.QueryIntent;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferUtils;
+import org.springframework.http.codec.ServerSentEvent;
 import org.springframework.stereotype.Service;
 import org.springframework.web.reactive.function.client.WebClient;
+import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 
+import java.math.BigDecimal;
+import java.math.RoundingMode;
 import java.time.Duration;
+import java.util.List;
 import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
 
 @Slf4j
 @Service
 public class OllamaService {
 
     private final WebClient webClient;
-    private final String model;
-    private final ObjectMapper objectMapper;
     private final int timeout;
+    private final String keepAlive; // how long Ollama keeps the model loaded after a request
+    private final MeterRegistry meterRegistry;
+    private final FinancialContextBuilder contextBuilder;
+    private final IntentClassifier intentClassifier;
+    private final ModelRouter modelRouter;
 
-    public OllamaService(@Value("${ollama.base-url}") String baseUrl,
-                        @Value("${ollama.model}") String model,
-                        @Value("${ollama.timeout:120000}") int timeout) {
-        this.model = model;
+    public OllamaService(WebClient ollamaWebClient,
+                        @Value("${ollama.timeout:120000}") int timeout,
+                        @Value("${ollama.keep-alive:30m}") String keepAlive,
+                        MeterRegistry meterRegistry,
+                        FinancialContextBuilder contextBuilder,
+                        IntentClassifier intentClassifier,
+                        ModelRouter modelRouter) {
+        this.contextBuilder = contextBuilder;
+        this.intentClassifier = intentClassifier;
+        this.modelRouter = modelRouter;
+        this.meterRegistry = meterRegistry;
         this.timeout = timeout;
-        this.objectMapper = new ObjectMapper();
-        this.webClient = WebClient.builder()
-                .baseUrl(baseUrl)
-                .build();
-        log.info("OllamaService initialized with model: {}, timeout: {}ms", model, timeout);
+        this.keepAlive = keepAlive;
+        this.webClient = ollamaWebClient;
+        log.info("OllamaService initialized with models: {}, timeout: {}ms", modelRouter.models(), timeout);
+    }
+
+    // Identifies the configured models; cached answers and digests are keyed by it
+    public String getModel() {
+        return modelRouter.signature();
+    }
+
+    // Rule-based answers are computed locally and never reach the model
+    public boolean hasPredefinedResponse(String query, FinancialSnapshot snapshot) {
+        return !intentClassifier.classify(query).getIntent().requiresModel();
     }
 
-    public AIInsightResponse generateInsight(AIInsightRequest request) {
+    public AIInsightResponse generateInsight(String query, FinancialSnapshot snapshot) {
         try {
-            // Decode HTML entities from context
-            String cleanContext = decodeHtmlEntities(request.getContext());
-            
-            log.info("Generating AI insight for query: {}", request.getQuery());
-            log.info("Financial context: {}", cleanContext);
-            
-            AIInsightRequest cleanRequest = new AIInsightRequest();
-            cleanRequest.setQuery(request.getQuery());
-            cleanRequest.setContext(cleanContext);
+            log.info("Generating AI insight for query: {}", query);
             
             // Check for predefined responses first
-            String predefinedResponse = getPredefinedResponse(cleanRequest);
+            String predefinedResponse = getPredefinedResponse(query, snapshot);
             if (predefinedResponse != null) {
                 log.info("Using predefined response for query type");
                 return AIInsightResponse.builder()
                     .insight(predefinedResponse)
-                    .category(extractCategory(predefinedResponse))
+                    .category(InsightStreamParser.categoryOf(predefinedResponse))
                     .recommendation("Follow the above suggestions for better financial management.")
                     .build();
             }
             
-            String prompt = buildPrompt(cleanRequest);
-            log.info("Full prompt sent to Ollama: {}", prompt);
+            String prompt = buildPrompt(query, snapshot);
+            log.debug("Full prompt sent to Ollama: {}", prompt);
             
-            Map<String, Object> requestBody = Map.of(
-                "model", model,
-                "prompt", prompt,
-                "stream", false
-            );
-
-            log.info("Sending request to Ollama at: /api/generate with timeout: {}ms", timeout);
-            long startTime = System.currentTimeMillis();
-            
-            String response = webClient.post()
-                    .uri("/api/generate")
-                    .bodyValue(requestBody)
-                    .retrieve()
-                    .bodyToMono(String.class)
-                    .timeout(Duration.ofMillis(timeout))
-                    .block();
-
-            long duration = System.currentTimeMillis() - startTime;
-            log.info("Received response from Ollama in {}ms", duration);
-            
-            // Log raw response for debugging
-            log.info("Raw Ollama response length: {} characters", response.length());
-            log.debug("Full Ollama response: {}", response);
-            
-            return parseResponse(response);
+            String model = modelRouter.route(query, prompt);
+            try {
+                return generate(model, prompt);
+            } catch (RuntimeException e) {
+                // Small model first; a failed or empty answer is retried once on the larger model
+                String larger = modelRouter.escalationModel(model);
+                if (larger == null) {
+                    throw e;
+                }
+                log.warn("Model {} failed ({}), escalating to {}", model, e.getMessage(), larger);
+                return generate(larger, prompt);
+            }
             
         } catch (Exception e) {
             log.error("Error generating AI insight. Error type: {}, Message: {}", 
@@ -97,17 +107,147 @@ public class OllamaService {
             
             return AIInsightResponse.builder()
                     .insight("I'm having trouble connecting to the AI service right now. " + 
-                            (errorMsg.contains("timeout") ? "The request took too long to process." : ""))
+                            (errorMsg != null && errorMsg.contains("timeout") ? "The request took too long to process." : ""))
                     .category("Error")
                     .recommendation("Please try again or check if Ollama is running properly.")
                     .build();
         }
     }
 
-    private String buildPrompt(AIInsightRequest request) {
+    // Rule-based answer for the given intent, computed locally; used while a model answer is not available yet
+    public AIInsightResponse ruleBasedInsight(QueryIntent intent, FinancialSnapshot snapshot) {
+        String response = getPredefinedResponse(intent, snapshot);
+        return AIInsightResponse.builder()
+                .insight(response)
+                .category(InsightStreamParser.categoryOf(response))
+                .recommendation("Follow the above suggestions for better financial management.")
+                .build();
+    }
+
+    // Generates through the streaming API as well, so the answer is assembled chunk by chunk
+    private AIInsightResponse generate(String model, String prompt) {
+        log.info("Sending request to Ollama model {} at: /api/generate with timeout: {}ms", model, timeout);
+        long startNanos = System.nanoTime();
+        InsightStreamParser parser = new InsightStreamParser();
+        tokens(model, prompt, parser)
+                .then()
+                .timeout(Duration.ofMillis(timeout))
+                .block();
+
+        long duration = System.nanoTime() - startNanos;
+        log.info("Received response from Ollama in {}ms", TimeUnit.NANOSECONDS.toMillis(duration));
+        if (parser.isEmpty()) {
+            throw new IllegalStateException("Empty response from model " + model);
+        }
+        modelRouter.recordGeneration(model, duration, parser.getEvalCount(), parser.getEvalDurationNanos());
+        AIInsightResponse response = parser.toResponse();
+        log.debug("AI response content: {}", response.getInsight());
+        return response;
+    }
+
+    /**
+     * Decoded text fragments of one generation, parsed from the raw NDJSON bytes as they arrive so no
+     * more than one network chunk is buffered. The parser keeps the running text, category and statistics.
+     */
+    private Flux<String> tokens(String model, String prompt, InsightStreamParser parser) {
+        Map<String, Object> requestBody = Map.of(
+            "model", model,
+            "prompt", prompt,
+            "stream", true,
+            "keep_alive", keepAlive
+        );
+        return webClient.post()
+                .uri("/api/generate")
+                .bodyValue(requestBody)
+                .retrieve()
+                // Ollama answers with one JSON object per line (application/x-ndjson)
+                .bodyToFlux(DataBuffer.class)
+                .timeout(Duration.ofMillis(timeout))
+                .concatMapIterable(buffer -> {
+                    try {
+                        byte[] bytes = new byte[buffer.readableByteCount()];
+                        buffer.read(bytes);
+                        return parser.feed(bytes, 0, bytes.length);
+                    } finally {
+                        DataBufferUtils.release(buffer);
+                    }
+                })
+                .concatWith(Mono.fromSupplier(parser::finish).filter(rest -> !rest.isEmpty()));
+    }
+
+    /**
+     * Streams the insight as Server-Sent Events: {@code token} events carry text fragments as Ollama
+     * produces them and a final {@code done} event ends the stream. Nothing blocks while waiting on the model.
+     */
+    public Flux<ServerSentEvent<String>> streamInsight(String query, FinancialSnapshot snapshot) {
+        String predefinedResponse = getPredefinedResponse(query, snapshot);
+        if (predefinedResponse != null) {
+            log.info("Using predefined response for streamed query");
+            return Flux.just(tokenEvent(predefinedResponse), doneEvent());
+        }
+
+        String prompt = buildPrompt(query, snapshot);
+        String model = modelRouter.route(query, prompt);
+        Timer firstTokenTimer = Timer.builder("ai.insight.first_token")
+                .description("Time from request to the first streamed token from Ollama")
+                .tag("model", model)
+                .publishPercentiles(0.5, 0.95, 0.99)
+                .register(meterRegistry);
+        Timer streamTimer = Timer.builder("ai.insight.stream")
+                .description("Duration of a streamed AI insight generation")
+                .tag("model", model)
+                .register(meterRegistry);
+
+        return Flux.defer(() -> {
+            long startNanos = System.nanoTime();
+            AtomicBoolean firstToken = new AtomicBoolean();
+            InsightStreamParser parser = new InsightStreamParser();
+            AtomicReference<String> sentCategory = new AtomicReference<>();
+            return tokens(model, prompt, parser)
+                    .doOnNext(token -> {
+                        if (firstToken.compareAndSet(false, true)) {
+                            firstTokenTimer.record(System.nanoTime() - startNanos, TimeUnit.NANOSECONDS);
+                        }
+                    })
+                    // The category is sent as soon as it is known and again whenever it changes
+                    .concatMapIterable(token -> {
+                        String category = parser.getCategory();
+                        if (category.equals(sentCategory.getAndSet(category))) {
+                            return List.of(tokenEvent(token));
+                        }
+                        return List.of(tokenEvent(token), namedEvent("category", category));
+                    })
+                    .concatWith(Flux.defer(() -> {
+                        modelRouter.recordGeneration(model, System.nanoTime() - startNanos,
+                                parser.getEvalCount(), parser.getEvalDurationNanos());
+                        return Flux.just(namedEvent("recommendation", parser.getRecommendation()), doneEvent());
+                    }))
+                    .doFinally(signal -> streamTimer.record(System.nanoTime() - startNanos, TimeUnit.NANOSECONDS))
+                    .onErrorResume(e -> {
+                        log.error("Error streaming AI insight. Error type: {}, Message: {}",
+                                e.getClass().getSimpleName(), e.getMessage());
+                        return Flux.just(ServerSentEvent.<String>builder()
+                                .event("error")
+                                .data("I'm having trouble connecting to the AI service right now. Please try again or check if Ollama is running properly.")
+                                .build());
+                    });
+        });
+    }
+
+    private ServerSentEvent<String> tokenEvent(String token) {
+        return namedEvent("token", token);
+    }
+
+    private ServerSentEvent<String> namedEvent(String name, String data) {
+        return ServerSentEvent.<String>builder().event(name).data(data).build();
+    }
+
+    private ServerSentEvent<String> doneEvent() {
+        return ServerSentEvent.<String>builder().event("done").data("").build();
+    }
+
+    private String buildPrompt(String query, FinancialSnapshot snapshot) {
         // This method now only handles queries that need AI processing
-        String query = request.getQuery().toLowerCase();
-        
         return String.format("""
             You are a financial advisor for India. Use ₹ symbol. Be structured and professional.
             
@@ -130,113 +270,48 @@ public class OllamaService {
             • [Long-term strategy]
             
             Keep it concise and actionable.
-            """, request.getQuery(), request.getContext());
+            """, query, contextBuilder.render(snapshot));
     }
     
-    private String extractUsername(String context) {
-        // Try to extract username from context - simple implementation
-        if (context != null && context.contains("user")) {
-            // This is a basic extraction - you can enhance based on your context format
-            return "";
-        }
-        return "";
+    private String getPredefinedResponse(String query, FinancialSnapshot snapshot) {
+        IntentMatch match = intentClassifier.classify(query);
+        log.debug("Query classified as {} (confidence {})", match.getIntent(), match.getConfidence());
+        return getPredefinedResponse(match.getIntent(), snapshot);
     }
-    
-    private boolean isFinancialQuery(String query) {
-        String[] financialKeywords = {
-            "money", "budget", "save", "saving", "invest", "investment", "expense", "spend", "spending",
-            "income", "salary", "financial", "finance", "bank", "loan", "debt", "credit", "fund",
-            "sip", "ppf", "fd", "mutual", "stock", "tax", "insurance", "emergency", "retirement",
-            "cost", "price", "rupee", "₹", "account", "transaction", "payment", "cash", "wealth",
-            "category", "analysis", "plan", "advice", "tip", "help", "manage", "optimize"
+
+    private String getPredefinedResponse(QueryIntent intent, FinancialSnapshot snapshot) {
+        return switch (intent) {
+            case GREETING -> "Hi there! I'm your AI financial advisor. How can I assist you with your finances today?";
+            case OFF_TOPIC -> "I'm your AI financial advisor, specialized only in money matters. Please ask me about budgeting, savings, investments, expenses, or financial planning. How can I help you with your finances today?";
+            case CATEGORY_SPENDING -> getCategoryWiseSpendingResponse(snapshot);
+            case OVERSPENDING -> getOverspendingAnalysis(snapshot);
+            case SAVING_PLAN -> getSavingPlanResponse(snapshot);
+            case INVESTMENT -> getInvestmentAdvice(snapshot);
+            case BUDGET_PLAN -> getBudgetPlanResponse(snapshot);
+            case GENERAL -> null; // No predefined response, use AI
         };
-        
-        for (String keyword : financialKeywords) {
-            if (query.contains(keyword)) {
-                return true;
-            }
-        }
-        return false;
-    }
-    
-    private String getPredefinedResponse(AIInsightRequest request) {
-        String query = request.getQuery().toLowerCase();
-        String username = extractUsername(request.getContext());
-        String greeting = username.isEmpty() ? "there" : username;
-        
-        // Greeting responses
-        if (query.contains("hi") || query.contains("hello") || query.contains("hey")) {
-            return String.format("Hi %s! I'm your AI financial advisor. How can I assist you with your finances today?", greeting);
-        }
-        
-        // Non-financial query responses
-        if (!isFinancialQuery(query)) {
-            return "I'm your AI financial advisor, specialized only in money matters. Please ask me about budgeting, savings, investments, expenses, or financial planning. How can I help you with your finances today?";
-        }
-        
-        // Category-wise spending analysis
-        if (query.contains("category") && (query.contains("spending") || query.contains("expense"))) {
-            return getCategoryWiseSpendingResponse(request.getContext());
-        }
-        
-        // Where am I spending too much
-        if (query.contains("spending too much") || query.contains("overspending") || (query.contains("where") && query.contains("spending"))) {
-            return getOverspendingAnalysis(request.getContext());
-        }
-        
-        // Saving plan requests
-        if (query.contains("saving plan") || query.contains("save money") || query.contains("how to save")) {
-            return getSavingPlanResponse(request.getContext());
-        }
-        
-        // Investment advice
-        if (query.contains("invest") || query.contains("sip") || query.contains("mutual fund") || query.contains("ppf")) {
-            return getInvestmentAdvice(request.getContext());
-        }
-        
-        // Budget planning
-        if (query.contains("budget") || query.contains("monthly plan")) {
-            return getBudgetPlanResponse(request.getContext());
-        }
-        
-        return null; // No predefined response, use AI
     }
     
-    private String getCategoryWiseSpendingResponse(String context) {
-        FinancialData data = parseFinancialContext(context);
-        
+    private String getCategoryWiseSpendingResponse(FinancialSnapshot data) {
         StringBuilder response = new StringBuilder();
         response.append("📊 Category-wise Spending Analysis\n\n");
         response.append("Based on your transaction data:\n\n");
         
-        // Calculate category totals
-        Map<String, Double> categoryTotals = new java.util.HashMap<>();
-        for (String transaction : data.transactions) {
-            String[] parts = transaction.split(" - ");
-            if (parts.length >= 2) {
-                String category = parts[1].split(" ")[0];
-                double amount = extractAmount(transaction);
-                categoryTotals.put(category, categoryTotals.getOrDefault(category, 0.0) + amount);
-            }
-        }
-        
         // Display categories
-        for (Map.Entry<String, Double> entry : categoryTotals.entrySet()) {
-            double percentage = (entry.getValue() / data.totalExpenses) * 100;
+        for (CategoryTotal entry : data.getExpenseCategories()) {
             response.append(String.format("• %s: ₹%.0f (%.0f%% of expenses)\n", 
-                entry.getKey(), entry.getValue(), percentage));
+                entry.getCategory(), entry.getTotal(), percentOf(entry.getTotal(), data.getTotalExpenses())));
         }
         
         response.append("\n💡 Key Insights:\n");
         response.append(String.format("• Total expenses: ₹%.0f (%.0f%% of income)\n", 
-            data.totalExpenses, (data.totalExpenses / data.totalIncome) * 100));
-        response.append(String.format("• Net balance: ₹%.0f\n", data.netBalance));
+            data.getTotalExpenses(), percentOf(data.getTotalExpenses(), data.getTotalIncome())));
+        response.append(String.format("• Net balance: ₹%.0f\n", data.getNetBalance()));
         
-        // Find highest expense category
-        String highestCategory = categoryTotals.entrySet().stream()
-            .max(Map.Entry.comparingByValue())
-            .map(Map.Entry::getKey)
-            .orElse("Unknown");
+        // Categories are ordered largest first
+        String highestCategory = data.getExpenseCategories().isEmpty()
+            ? "Unknown"
+            : data.getExpenseCategories().get(0).getCategory();
         
         response.append("\n🎯 Recommendations:\n");
         response.append(String.format("• Monitor %s expenses closely\n", highestCategory));
@@ -246,31 +321,18 @@ public class OllamaService {
         return response.toString();
     }
     
-    private String getOverspendingAnalysis(String context) {
-        FinancialData data = parseFinancialContext(context);
-        
+    private String getOverspendingAnalysis(FinancialSnapshot data) {
         StringBuilder response = new StringBuilder();
         response.append("⚠️ Overspending Analysis\n\n");
         
-        // Calculate category percentages
-        Map<String, Double> categoryTotals = new java.util.HashMap<>();
-        for (String transaction : data.transactions) {
-            String[] parts = transaction.split(" - ");
-            if (parts.length >= 2) {
-                String category = parts[1].split(" ")[0];
-                double amount = extractAmount(transaction);
-                categoryTotals.put(category, categoryTotals.getOrDefault(category, 0.0) + amount);
-            }
-        }
-        
         response.append("🔴 Areas of Concern:\n");
         boolean foundConcern = false;
         
-        for (Map.Entry<String, Double> entry : categoryTotals.entrySet()) {
-            double percentage = (entry.getValue() / data.totalIncome) * 100;
-            if (percentage > 20 && !entry.getKey().equalsIgnoreCase("Food")) {
+        for (CategoryTotal entry : data.getExpenseCategories()) {
+            double percentage = percentOf(entry.getTotal(), data.getTotalIncome());
+            if (percentage > 20 && !entry.getCategory().equalsIgnoreCase("Food")) {
                 response.append(String.format("• %s expenses: ₹%.0f (%.0f%% of income) - TOO HIGH\n", 
-                    entry.getKey(), entry.getValue(), percentage));
+                    entry.getCategory(), entry.getTotal(), percentage));
                 foundConcern = true;
             }
         }
@@ -280,79 +342,82 @@ public class OllamaService {
         }
         
         response.append("\n✅ Well-managed Categories:\n");
-        for (Map.Entry<String, Double> entry : categoryTotals.entrySet()) {
-            double percentage = (entry.getValue() / data.totalIncome) * 100;
+        for (CategoryTotal entry : data.getExpenseCategories()) {
+            double percentage = percentOf(entry.getTotal(), data.getTotalIncome());
             if (percentage <= 20) {
                 response.append(String.format("• %s expenses: ₹%.0f (%.0f%% of income) - REASONABLE\n", 
-                    entry.getKey(), entry.getValue(), percentage));
+                    entry.getCategory(), entry.getTotal(), percentage));
             }
         }
         
         response.append("\n🎯 Recommendations:\n");
-        response.append(String.format("• Current surplus: ₹%.0f/month\n", data.netBalance));
+        response.append(String.format("• Current surplus: ₹%.0f/month\n", data.getNetBalance()));
         response.append("• Focus on maintaining balanced spending\n");
         response.append("• Consider increasing savings if possible\n");
         
         return response.toString();
     }
     
-    private String getSavingPlanResponse(String context) {
-        FinancialData data = parseFinancialContext(context);
-        
+    private String getSavingPlanResponse(FinancialSnapshot data) {
         StringBuilder response = new StringBuilder();
         response.append("💰 Personalized Saving Plan\n\n");
         
+        BigDecimal netBalance = data.getNetBalance();
         response.append("📈 Current Position:\n");
-        response.append(String.format("• Monthly income: ₹%.0f\n", data.totalIncome));
-        response.append(String.format("• Monthly expenses: ₹%.0f\n", data.totalExpenses));
-        response.append(String.format("• Monthly surplus: ₹%.0f\n", data.netBalance));
+        response.append(String.format("• Monthly income: ₹%.0f\n", data.getTotalIncome()));
+        response.append(String.format("• Monthly expenses: ₹%.0f\n", data.getTotalExpenses()));
+        response.append(String.format("• Monthly surplus: ₹%.0f\n", netBalance));
         
-        double emergencyFund = data.netBalance * 0.4; // 40% for emergency
-        double investments = data.netBalance * 0.4;   // 40% for investments
-        double discretionary = data.netBalance * 0.2; // 20% for goals
+        BigDecimal emergencyFund = share(netBalance, "0.4"); // 40% for emergency
+        BigDecimal investments = share(netBalance, "0.4");   // 40% for investments
+        BigDecimal discretionary = share(netBalance, "0.2"); // 20% for goals
+        BigDecimal emergencyTarget = data.getTotalExpenses().multiply(BigDecimal.valueOf(6));
         
         response.append("\n🎯 Recommended Allocation:\n");
-        response.append(String.format("• Emergency Fund (40%): ₹%.0f/month\n", emergencyFund));
-        response.append(String.format("  - Target: ₹%.0f (6 months expenses)\n", data.totalExpenses * 6));
+        response.append(String.format("• Emergency Fund (40%%): ₹%.0f/month\n", emergencyFund));
+        response.append(String.format("  - Target: ₹%.0f (6 months expenses)\n", emergencyTarget));
         
-        response.append(String.format("• Investments (40%): ₹%.0f/month\n", investments));
-        response.append(String.format("  - SIP in equity funds: ₹%.0f\n", investments * 0.7));
-        response.append(String.format("  - PPF contribution: ₹%.0f\n", investments * 0.3));
+        response.append(String.format("• Investments (40%%): ₹%.0f/month\n", investments));
+        response.append(String.format("  - SIP in equity funds: ₹%.0f\n", share(investments, "0.7")));
+        response.append(String.format("  - PPF contribution: ₹%.0f\n", share(investments, "0.3")));
         
-        response.append(String.format("• Goals/Discretionary (20%): ₹%.0f/month\n", discretionary));
+        response.append(String.format("• Goals/Discretionary (20%%): ₹%.0f/month\n", discretionary));
         
-        int emergencyMonths = (int) Math.ceil((data.totalExpenses * 6) / emergencyFund);
         response.append("\n⏰ Timeline:\n");
-        response.append(String.format("• Emergency fund ready in %d months\n", emergencyMonths));
+        if (emergencyFund.signum() > 0) {
+            int emergencyMonths = emergencyTarget.divide(emergencyFund, 0, RoundingMode.CEILING).intValue();
+            response.append(String.format("• Emergency fund ready in %d months\n", emergencyMonths));
+        } else {
+            response.append("• Build a monthly surplus first to start your emergency fund\n");
+        }
         response.append("• ₹10 lakh corpus in ~10 years through SIP\n");
         
         return response.toString();
     }
     
-    private String getInvestmentAdvice(String context) {
-        FinancialData data = parseFinancialContext(context);
-        
+    private String getInvestmentAdvice(FinancialSnapshot data) {
         StringBuilder response = new StringBuilder();
         response.append("📈 Investment Strategy for You\n\n");
         
-        double availableForInvestment = data.netBalance * 0.6; // 60% of surplus
+        BigDecimal availableForInvestment = share(data.getNetBalance(), "0.6"); // 60% of surplus
         
         response.append(String.format("💵 Available for Investment: ₹%.0f/month\n\n", availableForInvestment));
         
-        double sipAmount = availableForInvestment * 0.6;
-        double ppfAmount = availableForInvestment * 0.3;
-        double elssAmount = availableForInvestment * 0.1;
+        BigDecimal sipAmount = share(availableForInvestment, "0.6");
+        BigDecimal ppfAmount = share(availableForInvestment, "0.3");
+        BigDecimal elssAmount = share(availableForInvestment, "0.1");
         
         response.append("📊 Recommended Portfolio:\n");
         response.append(String.format("• **SIP in Large Cap Funds:** ₹%.0f/month\n", sipAmount));
         response.append("  - Expected return: 12% annually\n");
-        response.append(String.format("  - 10-year value: ₹%.0f lakhs\n", (sipAmount * 12 * 10 * 1.12) / 100000));
+        response.append(String.format("  - 10-year value: ₹%.0f lakhs\n",
+            sipAmount.multiply(new BigDecimal("134.4")).divide(BigDecimal.valueOf(100000), 2, RoundingMode.HALF_UP)));
         
         response.append(String.format("• **PPF (Tax Saving):** ₹%.0f/month\n", ppfAmount));
         response.append("  - Tax benefit under 80C\n");
         response.append("  - 15-year maturity with tax-free returns\n");
         
-        if (elssAmount > 500) {
+        if (elssAmount.compareTo(BigDecimal.valueOf(500)) > 0) {
             response.append(String.format("• **ELSS Funds:** ₹%.0f/month\n", elssAmount));
             response.append("  - Additional tax saving\n");
             response.append("  - 3-year lock-in period\n");
@@ -366,40 +431,24 @@ public class OllamaService {
         return response.toString();
     }
     
-    private String getBudgetPlanResponse(String context) {
-        FinancialData data = parseFinancialContext(context);
-        
+    private String getBudgetPlanResponse(FinancialSnapshot data) {
         StringBuilder response = new StringBuilder();
         response.append("📋 Monthly Budget Plan\n\n");
         
-        response.append(String.format("💰 Income: ₹%.0f\n\n", data.totalIncome));
+        response.append(String.format("💰 Income: ₹%.0f\n\n", data.getTotalIncome()));
         
-        double expensePercentage = (data.totalExpenses / data.totalIncome) * 100;
-        double savingsPercentage = (data.netBalance / data.totalIncome) * 100;
+        double expensePercentage = percentOf(data.getTotalExpenses(), data.getTotalIncome());
+        double savingsPercentage = percentOf(data.getNetBalance(), data.getTotalIncome());
         
-        response.append(String.format("💸 Current Expenses (%.0f%%): ₹%.0f\n\n", expensePercentage, data.totalExpenses));
+        response.append(String.format("💸 Current Expenses (%.0f%%): ₹%.0f\n\n", expensePercentage, data.getTotalExpenses()));
         
-        // Show actual categories from transactions
-        Map<String, Double> categoryTotals = new java.util.HashMap<>();
-        for (String transaction : data.transactions) {
-            if (transaction.contains("(") && transaction.contains(")")) {
-                String categoryPart = transaction.substring(transaction.indexOf("(") + 1, transaction.indexOf(")"));
-                String[] categoryWords = categoryPart.split(" - ");
-                String category = categoryWords[0].trim();
-                double amount = extractAmount(transaction);
-                if (amount > 0) {
-                    categoryTotals.put(category, categoryTotals.getOrDefault(category, 0.0) + amount);
-                }
-            }
+        for (CategoryTotal entry : data.getExpenseCategories()) {
+            response.append(String.format("• %s: ₹%.0f\n", entry.getCategory(), entry.getTotal()));
         }
         
-        for (Map.Entry<String, Double> entry : categoryTotals.entrySet()) {
-            response.append(String.format("• %s: ₹%.0f\n", entry.getKey(), entry.getValue()));
-        }
-        
-        response.append(String.format("\n💰 Savings & Investments (%.0f%%): ₹%.0f\n\n", savingsPercentage, data.netBalance));
-        response.append(String.format("• Emergency fund: ₹%.0f\n", data.netBalance * 0.4));
-        response.append(String.format("• Investments: ₹%.0f\n", data.netBalance * 0.6));
+        response.append(String.format("\n💰 Savings & Investments (%.0f%%): ₹%.0f\n\n", savingsPercentage, data.getNetBalance()));
+        response.append(String.format("• Emergency fund: ₹%.0f\n", share(data.getNetBalance(), "0.4")));
+        response.append(String.format("• Investments: ₹%.0f\n", share(data.getNetBalance(), "0.6")));
         
         response.append("\n📱 Budget Tracking Tips:\n");
         response.append("• Use apps like Money Manager, Walnut\n");
@@ -410,158 +459,15 @@ public class OllamaService {
         return response.toString();
     }
     
-    private FinancialData parseFinancialContext(String context) {
-        FinancialData data = new FinancialData();
-        
-        if (context != null) {
-            // Extract total income
-            if (context.contains("Total Income:")) {
-                String incomeStr = context.substring(context.indexOf("Total Income:") + 13);
-                incomeStr = incomeStr.substring(0, incomeStr.indexOf("\n")).replace("₹", "").replace("?", "").trim();
-                data.totalIncome = Double.parseDouble(incomeStr);
-            }
-            
-            // Extract total expenses
-            if (context.contains("Total Expenses:")) {
-                String expenseStr = context.substring(context.indexOf("Total Expenses:") + 15);
-                expenseStr = expenseStr.substring(0, expenseStr.indexOf("\n")).replace("₹", "").replace("?", "").trim();
-                data.totalExpenses = Double.parseDouble(expenseStr);
-            }
-            
-            // Extract net balance
-            if (context.contains("Net Balance:")) {
-                String balanceStr = context.substring(context.indexOf("Net Balance:") + 12);
-                balanceStr = balanceStr.substring(0, balanceStr.indexOf("\n")).replace("₹", "").replace("?", "").trim();
-                data.netBalance = Double.parseDouble(balanceStr);
-            }
-            
-            // Extract transactions
-            if (context.contains("Transaction Details:")) {
-                String transactionSection = context.substring(context.indexOf("Transaction Details:") + 20);
-                String[] lines = transactionSection.split("\n");
-                for (String line : lines) {
-                    if (line.trim().startsWith("-")) {
-                        data.transactions.add(line.trim().substring(1).trim());
-                    }
-                }
-            }
+    // Percentage of part in whole for display; 0 when there is nothing to compare against
+    private static double percentOf(BigDecimal part, BigDecimal whole) {
+        if (whole == null || whole.signum() == 0) {
+            return 0;
         }
-        
-        return data;
+        return part.multiply(BigDecimal.valueOf(100)).divide(whole, 2, RoundingMode.HALF_UP).doubleValue();
     }
     
-    private double extractAmount(String transaction) {
-        try {
-            // Look for ₹ or ? symbol
-            int startIndex = -1;
-            if (transaction.contains("₹")) {
-                startIndex = transaction.indexOf("₹") + 1;
-            } else if (transaction.contains("?")) {
-                startIndex = transaction.indexOf("?") + 1;
-            }
-            
-            if (startIndex > 0) {
-                int endIndex = transaction.indexOf(" (", startIndex);
-                if (endIndex == -1) endIndex = transaction.length();
-                
-                String amountStr = transaction.substring(startIndex, endIndex);
-                amountStr = amountStr.replace("?", "").replace(",", "").replace("₹", "").trim();
-                return Double.parseDouble(amountStr);
-            }
-            return 0.0;
-        } catch (Exception e) {
-            log.debug("Error extracting amount from: {}", transaction);
-            return 0.0;
-        }
-    }
-    
-    private static class FinancialData {
-        double totalIncome = 0;
-        double totalExpenses = 0;
-        double netBalance = 0;
-        java.util.List<String> transactions = new java.util.ArrayList<>();
-    }
-
-    private AIInsightResponse parseResponse(String response) {
-        try {
-            JsonNode jsonNode = objectMapper.readTree(response);
-            String aiResponse = jsonNode.get("response").asText();
-            
-            log.info("AI response length: {} characters", aiResponse.length());
-            log.debug("AI response content: {}", aiResponse);
-            
-            // Decode HTML entities in the AI response
-            aiResponse = decodeHtmlEntities(aiResponse);
-            
-            // Extract category from response content
-            String category = extractCategory(aiResponse);
-            
-            // Split response into insight and recommendation if possible
-            String[] parts = splitResponse(aiResponse);
-            
-            return AIInsightResponse.builder()
-                    .insight(parts[0])
-                    .category(category)
-                    .recommendation(parts[1])
-                    .build();
-                    
-        } catch (Exception e) {
-            log.error("Error parsing AI response: ", e);
-            return AIInsightResponse.builder()
-                    .insight("AI analysis completed")
-                    .category("General")
-                    .recommendation("Review your financial data regularly.")
-                    .build();
-        }
-    }
-    
-    private String extractCategory(String response) {
-        String lower = response.toLowerCase();
-        if (lower.contains("saving") || lower.contains("save")) return "Saving";
-        if (lower.contains("spending") || lower.contains("expense")) return "Spending";
-        if (lower.contains("budget")) return "Budget";
-        if (lower.contains("invest") || lower.contains("sip") || lower.contains("ppf")) return "Investment";
-        if (lower.contains("debt") || lower.contains("loan")) return "Debt Management";
-        return "General";
-    }
-    
-    private String decodeHtmlEntities(String text) {
-        if (text == null) return null;
-        
-        return text
-            // Named entities
-            .replace("&gt;", ">")
-            .replace("&lt;", "<")
-            .replace("&amp;", "&")
-            .replace("&quot;", "\"")
-            .replace("&apos;", "'")
-            .replace("&nbsp;", " ")
-            // Numeric entities
-            .replace("&#39;", "'")
-            .replace("&#x27;", "'")
-            .replace("&#34;", "\"")
-            .replace("&#x22;", "\"")
-            .replace("&#38;", "&")
-            .replace("&#60;", "<")
-            .replace("&#62;", ">")
-            // Common numeric codes
-            .replace("&#8217;", "'")
-            .replace("&#8220;", "\"")
-            .replace("&#8221;", "\"")
-            .replace("&#8230;", "...");
-    }
-    
-    private String[] splitResponse(String response) {
-        // HTML entities should already be decoded in parseResponse
-        response = decodeHtmlEntities(response);
-        
-        // For financial advice, keep the full response as insight
-        // and provide a generic recommendation
-        if (response.length() > 50) {
-            return new String[]{response.trim(), "Review and implement these financial strategies for better money management."};
-        }
-        
-        // Fallback for short responses
-        return new String[]{response.trim(), "Consider these suggestions for improved financial health."};
+    private static BigDecimal share(BigDecimal amount, String fraction) {
+        return amount.multiply(new BigDecimal(fraction)).setScale(2, RoundingMode.HALF_UP);
     }
-}
\ No newline at end of file
+}
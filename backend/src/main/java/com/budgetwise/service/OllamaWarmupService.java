@@ -0,0 +1,123 @@
+package com.budgetwise.service;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+import org.springframework.web.reactive.function.client.WebClient;
+import reactor.core.publisher.Flux;
+import reactor.netty.http.client.HttpClientRequest;
+import reactor.util.retry.Retry;
+
+import java.time.Duration;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Loads the routed models into Ollama at startup so the first user request does not pay the load time,
+ * and keeps them loaded for {@code ollama.keep-alive}. The readiness check reports whether they are resident.
+ */
+@Slf4j
+@Service
+public class OllamaWarmupService {
+
+    private static final Duration READINESS_TIMEOUT = Duration.ofSeconds(3);
+
+    private final WebClient webClient;
+    private final List<String> models;
+    private final String keepAlive;
+    private final boolean enabled;
+    private final Duration warmupTimeout;
+    private final AtomicBoolean warming = new AtomicBoolean();
+    private volatile String lastError;
+
+    public OllamaWarmupService(WebClient ollamaWebClient,
+                               ModelRouter modelRouter,
+                               @Value("${ollama.keep-alive:30m}") String keepAlive,
+                               @Value("${ollama.warmup.enabled:true}") boolean enabled,
+                               @Value("${ollama.warmup.timeout-ms:300000}") long warmupTimeoutMillis) {
+        this.webClient = ollamaWebClient;
+        this.models = modelRouter.models();
+        this.keepAlive = keepAlive;
+        this.enabled = enabled;
+        this.warmupTimeout = Duration.ofMillis(warmupTimeoutMillis);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void warmUpOnStartup() {
+        if (enabled) {
+            warmUp();
+        }
+    }
+
+    // Non-blocking; a warm-up already in progress is not started twice
+    public void warmUp() {
+        if (!warming.compareAndSet(false, true)) {
+            return;
+        }
+        long start = System.currentTimeMillis();
+        log.info("Warming up Ollama models {}", models);
+        // One model at a time; an empty prompt makes Ollama load the model without generating anything
+        Flux.fromIterable(models)
+                .concatMap(model -> webClient.post()
+                        .uri("/api/generate")
+                        .bodyValue(Map.of("model", model, "prompt", "", "stream", false, "keep_alive", keepAlive))
+                        // No bytes arrive until the model is loaded, so the client's response timeout would fire first
+                        .httpRequest(request -> ((HttpClientRequest) request.getNativeRequest()).responseTimeout(warmupTimeout))
+                        .retrieve()
+                        .toBodilessEntity()
+                        .timeout(warmupTimeout)
+                        .retryWhen(Retry.backoff(3, Duration.ofSeconds(2)))
+                        .doOnSuccess(response -> log.info("Ollama model {} loaded after {}ms",
+                                model, System.currentTimeMillis() - start)))
+                .doFinally(signal -> warming.set(false))
+                .subscribe(
+                        response -> lastError = null,
+                        error -> {
+                            lastError = error.getMessage();
+                            log.warn("Could not warm up Ollama models {}: {}", models, error.getMessage());
+                        });
+    }
+
+    /**
+     * Returns null if all routed models are loaded in Ollama, or a message if not. Missing models get warmed up.
+     */
+    public String checkReadiness() {
+        JsonNode running;
+        try {
+            running = webClient.get()
+                    .uri("/api/ps")
+                    .retrieve()
+                    .bodyToMono(JsonNode.class)
+                    .timeout(READINESS_TIMEOUT)
+                    .block();
+        } catch (RuntimeException e) {
+            return "Ollama is not reachable: " + e.getMessage();
+        }
+        Set<String> loaded = new HashSet<>();
+        if (running != null) {
+            for (JsonNode model : running.path("models")) {
+                loaded.add(model.path("name").asText());
+                loaded.add(model.path("model").asText());
+            }
+        }
+        // Ollama reports untagged models with the implicit ":latest" tag
+        List<String> missing = models.stream()
+                .filter(model -> !loaded.contains(model) && !loaded.contains(model + ":latest"))
+                .toList();
+        if (missing.isEmpty()) {
+            return null;
+        }
+        boolean inProgress = warming.get();
+        warmUp();
+        if (inProgress) {
+            return "Models " + missing + " are loading";
+        }
+        return "Models " + missing + " are not loaded" + (lastError != null ? " (last warm-up failed: " + lastError + ")" : "");
+    }
+}
@@ -11,9 +11,8 @@ import com.budgetwise.model.User;
 import com.budgetwise.repository.PostRepository;
 import com.budgetwise.repository.CommentRepository;
 import com.budgetwise.repository.LikeRepository;
-import com.budgetwise.repository.UserRepository;
+import com.budgetwise.security.CurrentUserProvider;
 import lombok.RequiredArgsConstructor;
-import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.stereotype.Service;
 import java.time.LocalDateTime;
 import java.util.List;
@@ -26,18 +25,11 @@ public class PostService {
     private final PostRepository postRepository;
     private final CommentRepository commentRepository;
     private final LikeRepository likeRepository;
-    private final UserRepository userRepository;
-
-    private User getCurrentUser() {
-        String identifier = SecurityContextHolder.getContext().getAuthentication().getName();
-        return userRepository.findByUsername(identifier)
-                .or(() -> userRepository.findByEmail(identifier))
-                .orElseThrow(() -> new RuntimeException("User not found"));
-    }
+    private final CurrentUserProvider currentUserProvider;
 
     // Post Operations
     public PostResponse createPost(PostRequest request) {
-        User user = getCurrentUser();
+        User user = currentUserProvider.getCurrentUserReference();
 
         Post post = Post.builder()
                 .title(request.getTitle())
@@ -53,7 +45,7 @@ public class PostService {
     }
 
     public List<PostResponse> getAllPosts() {
-        User currentUser = getCurrentUser();
+        User currentUser = currentUserProvider.getCurrentUserReference();
         List<Post> posts = postRepository.findAllByOrderByCreatedAtDesc();
         return posts.stream()
                 .map(post -> mapPostToResponseWithUserContext(post, currentUser))
@@ -61,14 +53,14 @@ public class PostService {
     }
 
     public PostResponse getPostById(Long id) {
-        User currentUser = getCurrentUser();
+        User currentUser = currentUserProvider.getCurrentUserReference();
         Post post = postRepository.findById(id)
                 .orElseThrow(() -> new RuntimeException("Post not found"));
         return mapPostToResponseWithUserContext(post, currentUser);
     }
 
     public PostResponse updatePost(Long id, PostRequest request) {
-        User user = getCurrentUser();
+        User user = currentUserProvider.getCurrentUserReference();
         Post post = postRepository.findById(id)
                 .orElseThrow(() -> new RuntimeException("Post not found"));
 
@@ -86,7 +78,7 @@ public class PostService {
     }
 
     public void deletePost(Long id) {
-        User user = getCurrentUser();
+        User user = currentUserProvider.getCurrentUserReference();
         Post post = postRepository.findById(id)
                 .orElseThrow(() -> new RuntimeException("Post not found"));
 
@@ -99,7 +91,7 @@ public class PostService {
 
     // Comment Operations
     public CommentResponse addComment(Long postId, CommentRequest request) {
-        User user = getCurrentUser();
+        User user = currentUserProvider.getCurrentUserReference();
         Post post = postRepository.findById(postId)
                 .orElseThrow(() -> new RuntimeException("Post not found"));
 
@@ -116,7 +108,7 @@ public class PostService {
     }
 
     public void deleteComment(Long commentId) {
-        User user = getCurrentUser();
+        User user = currentUserProvider.getCurrentUserReference();
         Comment comment = commentRepository.findById(commentId)
                 .orElseThrow(() -> new RuntimeException("Comment not found"));
 
@@ -129,7 +121,7 @@ public class PostService {
 
     // Like Operations
     public PostResponse toggleLike(Long postId) {
-        User user = getCurrentUser();
+        User user = currentUserProvider.getCurrentUserReference();
         Post post = postRepository.findById(postId)
                 .orElseThrow(() -> new RuntimeException("Post not found"));
 
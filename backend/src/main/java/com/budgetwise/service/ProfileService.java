@@ -5,8 +5,10 @@ import com.budgetwise.dto.UserProfileDTO;
 import com.budgetwise.model.User;
 import com.budgetwise.repository.UserRepository;
 import lombok.RequiredArgsConstructor;
+import com.budgetwise.security.CurrentUserProvider;
+import com.budgetwise.security.PrincipalCache;
+import com.budgetwise.security.TokenRevocationService;
 import lombok.extern.slf4j.Slf4j;
-import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
 import org.springframework.web.multipart.MultipartFile;
@@ -25,17 +27,15 @@ public class ProfileService {
 
     private final UserRepository userRepository;
     private final PasswordEncoder passwordEncoder;
+    private final CurrentUserProvider currentUserProvider;
+    private final PrincipalCache principalCache;
+    private final TokenRevocationService tokenRevocationService;
 
     /**
-     * Retrieves the currently authenticated user based on the identifier
-     * (can be either email or username from the SecurityContext).
+     * Retrieves the currently authenticated user, resolved once per request.
      */
     private User getCurrentUser() {
-        String identifier = SecurityContextHolder.getContext().getAuthentication().getName();
-
-        return userRepository.findByUsername(identifier)
-                .or(() -> userRepository.findByEmail(identifier))
-                .orElseThrow(() -> new RuntimeException("User not found"));
+        return currentUserProvider.getCurrentUser();
     }
 
     /**
@@ -74,6 +74,11 @@ public class ProfileService {
                     !request.getUsername().equals(user.getUsername())) {
                 throw new RuntimeException("Username already taken");
             }
+            if (!request.getUsername().equals(user.getUsername())) {
+                // Tokens carry the username as subject, so existing sessions must re-authenticate
+                principalCache.evict(user.getUsername());
+                tokenRevocationService.revokeAllForUser(user.getId());
+            }
             user.setUsername(request.getUsername());
         }
 
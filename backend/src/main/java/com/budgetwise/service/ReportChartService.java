@@ -0,0 +1,171 @@
+package com.budgetwise.service;
+
+import com.budgetwise.dto.CategoryTotal;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.jfree.chart.ChartFactory;
+import org.jfree.chart.ChartUtils;
+import org.jfree.chart.JFreeChart;
+import org.jfree.chart.plot.PlotOrientation;
+import org.jfree.data.category.DefaultCategoryDataset;
+import org.jfree.data.general.DefaultPieDataset;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.format.DateTimeFormatter;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+/**
+ * Renders the PDF report charts (expense categories and the monthly income/expense trend) as PNGs.
+ * Images are cached by chart, user and the user's data version (see {@link UserDataVersionService}), so
+ * repeated exports reuse them until the data changes; the trend key also carries its last month, since its
+ * window moves with the calendar even when the data does not. Rasterising runs on a small
+ * bounded pool; when it is saturated or too slow the report is written without the chart.
+ */
+@Slf4j
+@Service
+public class ReportChartService {
+
+    private static final int WIDTH = 1000;
+    private static final int HEIGHT = 560;
+    private static final int MAX_PIE_SLICES = 8;
+    private static final DateTimeFormatter MONTH = DateTimeFormatter.ofPattern("MMM yy");
+
+    private final TransactionSummaryService summaryService;
+    private final Cache<String, byte[]> cache;
+    private final ThreadPoolExecutor renderers;
+    private final Timer renderTimer;
+    private final long renderTimeoutMillis;
+    private final int trendMonths;
+
+    public ReportChartService(TransactionSummaryService summaryService,
+                              MeterRegistry meterRegistry,
+                              @Value("${export.charts.cache-max-mb:32}") long cacheMaxMb,
+                              @Value("${export.charts.ttl-minutes:60}") long ttlMinutes,
+                              @Value("${export.charts.threads:2}") int threads,
+                              @Value("${export.charts.max-queued:20}") int maxQueued,
+                              @Value("${export.charts.render-timeout-ms:10000}") long renderTimeoutMillis,
+                              @Value("${export.charts.trend-months:12}") int trendMonths) {
+        this.summaryService = summaryService;
+        this.cache = Caffeine.newBuilder()
+                .maximumWeight(cacheMaxMb * 1024 * 1024)
+                .weigher((String key, byte[] png) -> png.length)
+                .expireAfterAccess(Duration.ofMinutes(ttlMinutes))
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, cache, "export.chart.cache");
+        AtomicInteger threadCount = new AtomicInteger();
+        this.renderers = new ThreadPoolExecutor(threads, threads, 0, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(maxQueued), runnable -> {
+                    Thread thread = new Thread(runnable, "chart-renderer-" + threadCount.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                });
+        this.renderTimer = Timer.builder("export.chart.render")
+                .description("Time spent rasterising a report chart")
+                .register(meterRegistry);
+        this.renderTimeoutMillis = renderTimeoutMillis;
+        this.trendMonths = trendMonths;
+    }
+
+    // PNG of the largest expense categories, the rest folded into "Other"; null when there is nothing to draw
+    public byte[] categoryPie(Long userId, long version, List<CategoryTotal> categories) {
+        String key = "pie|" + userId + '|' + version;
+        byte[] cached = cache.getIfPresent(key);
+        if (cached != null || categories.isEmpty()) {
+            return cached;
+        }
+        DefaultPieDataset<String> dataset = new DefaultPieDataset<>();
+        BigDecimal other = BigDecimal.ZERO;
+        for (int i = 0; i < categories.size(); i++) {
+            CategoryTotal category = categories.get(i);
+            if (i < MAX_PIE_SLICES) {
+                dataset.setValue(category.getCategory(), category.getTotal());
+            } else {
+                other = other.add(category.getTotal());
+            }
+        }
+        if (other.signum() > 0) {
+            dataset.setValue("Other", other);
+        }
+        return render(key, () -> ChartFactory.createPieChart("Expenses by Category", dataset, true, false, false));
+    }
+
+    // PNG of income and expenses per month over the trend window; the rollup is only read on a cache miss
+    public byte[] monthlyTrend(Long userId, long version) {
+        LocalDate to = LocalDate.now().withDayOfMonth(1);
+        String key = "trend|" + userId + '|' + version + '|' + to;
+        byte[] cached = cache.getIfPresent(key);
+        if (cached != null) {
+            return cached;
+        }
+        LocalDate from = to.minusMonths(trendMonths - 1L);
+        Map<LocalDate, BigDecimal[]> months = new TreeMap<>();
+        for (Object[] row : summaryService.getMonthlyTotals(userId, from, to)) {
+            BigDecimal[] month = months.computeIfAbsent((LocalDate) row[0], k -> new BigDecimal[]{BigDecimal.ZERO, BigDecimal.ZERO});
+            int index = TransactionSummaryService.INCOME.equals(row[1]) ? 0 : 1;
+            month[index] = month[index].add((BigDecimal) row[2]);
+        }
+        if (months.isEmpty()) {
+            return null;
+        }
+        DefaultCategoryDataset dataset = new DefaultCategoryDataset();
+        months.forEach((month, values) -> {
+            String label = month.format(MONTH);
+            dataset.addValue(values[0], "Income", label);
+            dataset.addValue(values[1], "Expenses", label);
+        });
+        return render(key, () -> ChartFactory.createLineChart("Monthly Trend", "Month", "Amount (₹)",
+                dataset, PlotOrientation.VERTICAL, true, false, false));
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        renderers.shutdownNow();
+    }
+
+    private byte[] render(String key, Supplier<JFreeChart> chart) {
+        try {
+            byte[] png = CompletableFuture.supplyAsync(() -> renderTimer.record(() -> toPng(chart.get())), renderers)
+                    .get(renderTimeoutMillis, TimeUnit.MILLISECONDS);
+            cache.put(key, png);
+            return png;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return null;
+        } catch (Exception e) {
+            // Includes a full render queue: the report goes out without this chart rather than waiting
+            log.warn("Could not render chart {}: {}", key, e.getMessage());
+            return null;
+        }
+    }
+
+    private static byte[] toPng(JFreeChart chart) {
+        try {
+            ByteArrayOutputStream out = new ByteArrayOutputStream(64 * 1024);
+            ChartUtils.writeChartAsPNG(out, chart, WIDTH, HEIGHT);
+            return out.toByteArray();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
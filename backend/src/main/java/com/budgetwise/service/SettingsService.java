@@ -5,9 +5,8 @@ import com.budgetwise.dto.SettingsResponse;
 import com.budgetwise.model.Settings;
 import com.budgetwise.model.User;
 import com.budgetwise.repository.SettingsRepository;
-import com.budgetwise.repository.UserRepository;
+import com.budgetwise.security.CurrentUserProvider;
 import lombok.RequiredArgsConstructor;
-import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.stereotype.Service;
 import java.time.LocalDateTime;
 
@@ -16,20 +15,13 @@ import java.time.LocalDateTime;
 public class SettingsService {
 
     private final SettingsRepository settingsRepository;
-    private final UserRepository userRepository;
-
-    private User getCurrentUser() {
-        String identifier = SecurityContextHolder.getContext().getAuthentication().getName();
-        return userRepository.findByUsername(identifier)
-                .or(() -> userRepository.findByEmail(identifier))
-                .orElseThrow(() -> new RuntimeException("User not found"));
-    }
+    private final CurrentUserProvider currentUserProvider;
 
     /**
      * Get current user's settings
      */
     public SettingsResponse getSettings() {
-        User user = getCurrentUser();
+        User user = currentUserProvider.getCurrentUserReference();
         Settings settings = settingsRepository.findByUser(user)
                 .orElseGet(() -> createDefaultSettings(user));
         return mapToResponse(settings);
@@ -39,7 +31,7 @@ public class SettingsService {
      * Update current user's settings
      */
     public SettingsResponse updateSettings(SettingsRequest request) {
-        User user = getCurrentUser();
+        User user = currentUserProvider.getCurrentUserReference();
         Settings settings = settingsRepository.findByUser(user)
                 .orElseGet(() -> createDefaultSettings(user));
 
@@ -1,140 +1,183 @@
 package com.budgetwise.service;
 
-import com.budgetwise.dto.TransactionResponse;
+import com.budgetwise.dto.BudgetStatusResponse;
+import com.budgetwise.dto.ExportSnapshot;
+import com.budgetwise.dto.GoalResponse;
+import com.budgetwise.dto.SummaryTotals;
 import com.budgetwise.model.User;
-import com.budgetwise.repository.UserRepository;
+import com.budgetwise.security.CurrentUserProvider;
+import com.opencsv.CSVWriterBuilder;
+import com.opencsv.ICSVWriter;
 import lombok.RequiredArgsConstructor;
-import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.stereotype.Service;
 
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
 import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
 import java.time.format.DateTimeFormatter;
-import java.util.List;
+import java.util.function.Consumer;
+import java.util.zip.GZIPOutputStream;
 
 @Service
 @RequiredArgsConstructor
 public class SimpleExportService {
 
+    private static final DateTimeFormatter DAY = DateTimeFormatter.ofPattern("dd-MM-yyyy");
+    private static final DateTimeFormatter MINUTE = DateTimeFormatter.ofPattern("dd-MM-yyyy HH:mm");
+    private static final String[] BLANK_ROW = {""};
+    private static final int CSV_BUFFER_SIZE = 64 * 1024;
+
     private final TransactionService transactionService;
-    private final UserRepository userRepository;
+    private final CurrentUserProvider currentUserProvider;
+    private final ExportSnapshotLoader snapshotLoader;
 
-    private User getCurrentUser() {
-        String identifier = SecurityContextHolder.getContext().getAuthentication().getName();
-        return userRepository.findByUsername(identifier)
-                .or(() -> userRepository.findByEmail(identifier))
-                .orElseThrow(() -> new RuntimeException("User not found"));
+    /**
+     * Streams the CSV report to {@code out}, gzip-compressed when asked to. Rows go through a buffered writer
+     * as they are produced, so nothing but the current row is held in memory.
+     */
+    public void writeCsv(Long userId, String username, String sections, OutputStream out, boolean gzip) {
+        try {
+            GZIPOutputStream compressed = gzip ? new GZIPOutputStream(out, CSV_BUFFER_SIZE) : null;
+            Writer writer = new BufferedWriter(
+                    new OutputStreamWriter(gzip ? compressed : out, StandardCharsets.UTF_8), CSV_BUFFER_SIZE);
+            writeCsv(userId, username, sections, writer, section -> {
+            });
+            writer.flush();
+            if (compressed != null) {
+                compressed.finish();
+            }
+        } catch (IOException e) {
+            throw new RuntimeException("Error generating CSV", e);
+        }
     }
 
-    public String exportToCsv(String sections) {
+    // Takes the user explicitly so export jobs can run it off the request thread; onSection follows progress
+    public void writeCsv(Long userId, String username, String sections, Writer out, Consumer<String> onSection) {
         try {
-            StringBuilder csv = new StringBuilder();
-            String[] sectionArray = sections.split(",");
-            
-            for (String section : sectionArray) {
-                switch (section.trim()) {
-                    case "dashboard":
-                        csv.append(generateDashboardCsv());
-                        break;
-                    case "transactions":
-                        csv.append(generateTransactionsCsv());
-                        break;
-                    case "budgets":
-                        csv.append(generateBudgetsCsv());
-                        break;
-                    case "goals":
-                        csv.append(generateGoalsCsv());
-                        break;
-                    case "ai-insights":
-                        csv.append(generateAIInsightsCsv());
-                        break;
-                    case "all":
-                        csv.append(generateDashboardCsv());
-                        csv.append(generateTransactionsCsv());
-                        csv.append(generateBudgetsCsv());
-                        csv.append(generateGoalsCsv());
-                        csv.append(generateAIInsightsCsv());
-                        break;
+            ExportSnapshot snapshot = snapshotLoader.load(userId, username, sections);
+            // RFC 4180: CRLF line ends, fields quoted only when they contain a separator, quote or line break
+            ICSVWriter csv = new CSVWriterBuilder(out)
+                    .withLineEnd(ICSVWriter.RFC4180_LINE_END)
+                    .build();
+
+            for (String section : snapshot.getSections()) {
+                switch (section) {
+                    case ExportSnapshotLoader.DASHBOARD -> writeDashboardCsv(csv, snapshot);
+                    case ExportSnapshotLoader.TRANSACTIONS -> writeTransactionsCsv(csv, snapshot);
+                    case ExportSnapshotLoader.BUDGETS -> writeBudgetsCsv(csv, snapshot);
+                    case ExportSnapshotLoader.GOALS -> writeGoalsCsv(csv, snapshot);
+                    case ExportSnapshotLoader.AI_INSIGHTS -> writeAIInsightsCsv(csv);
+                    default -> {
+                    }
                 }
-                csv.append("\n");
+                csv.writeNext(BLANK_ROW, false);
+                onSection.accept(section);
             }
 
-            return csv.toString();
+            csv.flush();
+            if (csv.checkError()) {
+                throw new IOException("Could not write CSV", csv.getException());
+            }
         } catch (Exception e) {
             throw new RuntimeException("Error generating CSV", e);
         }
     }
 
-    private String generateDashboardCsv() {
-        List<TransactionResponse> transactions = transactionService.getUserTransactions();
-        BigDecimal totalIncome = BigDecimal.ZERO;
-        BigDecimal totalExpenses = BigDecimal.ZERO;
-        
-        for (TransactionResponse t : transactions) {
-            if ("INCOME".equalsIgnoreCase(t.getType())) {
-                totalIncome = totalIncome.add(t.getAmount());
-            } else {
-                totalExpenses = totalExpenses.add(t.getAmount());
-            }
-        }
+    private void writeDashboardCsv(ICSVWriter csv, ExportSnapshot snapshot) {
+        SummaryTotals totals = snapshot.getTotals();
         
-        StringBuilder csv = new StringBuilder();
-        csv.append("DASHBOARD SUMMARY\n");
-        csv.append("Metric,Amount\n");
-        csv.append("Total Income,").append(totalIncome).append("\n");
-        csv.append("Total Expenses,").append(totalExpenses).append("\n");
-        csv.append("Net Balance,").append(totalIncome.subtract(totalExpenses)).append("\n");
-        csv.append("Total Transactions,").append(transactions.size()).append("\n");
-        return csv.toString();
+        csv.writeNext(new String[]{"DASHBOARD SUMMARY"}, false);
+        csv.writeNext(new String[]{"Metric", "Amount"}, false);
+        csv.writeNext(new String[]{"Total Income", plain(totals.getTotalIncome())}, false);
+        csv.writeNext(new String[]{"Total Expenses", plain(totals.getTotalExpenses())}, false);
+        csv.writeNext(new String[]{"Net Balance", plain(totals.getNetBalance())}, false);
+        csv.writeNext(new String[]{"Total Transactions", String.valueOf(totals.getTransactionCount())}, false);
     }
 
-    private String generateTransactionsCsv() {
-        List<TransactionResponse> transactions = transactionService.getUserTransactions();
-        StringBuilder csv = new StringBuilder();
-        csv.append("TRANSACTIONS\n");
-        csv.append("Date,Description,Category,Type,Amount,Payment Method\n");
+    private void writeTransactionsCsv(ICSVWriter csv, ExportSnapshot snapshot) {
+        csv.writeNext(new String[]{"TRANSACTIONS"}, false);
+        csv.writeNext(new String[]{"Date", "Description", "Category", "Type", "Amount", "Payment Method"}, false);
         
-        for (TransactionResponse t : transactions) {
-            csv.append(t.getDate().format(DateTimeFormatter.ofPattern("dd-MM-yyyy HH:mm"))).append(",");
-            csv.append("\"").append(t.getDescription()).append("\",");
-            csv.append(t.getCategory()).append(",");
-            csv.append(t.getType()).append(",");
-            csv.append(t.getAmount()).append(",");
-            csv.append(t.getPaymentMethod() != null ? t.getPaymentMethod() : "").append("\n");
+        // One row array reused for every transaction; the writer copies the fields out as it goes
+        String[] row = new String[6];
+        transactionService.forEachTransaction(snapshot.getUserId(), t -> {
+            row[0] = t.getDate().format(MINUTE);
+            row[1] = t.getDescription();
+            row[2] = t.getCategory();
+            row[3] = t.getType();
+            row[4] = plain(t.getAmount());
+            row[5] = t.getPaymentMethod();
+            csv.writeNext(row, false);
+        });
+    }
+
+    private void writeBudgetsCsv(ICSVWriter csv, ExportSnapshot snapshot) {
+        csv.writeNext(new String[]{"BUDGETS"}, false);
+        csv.writeNext(new String[]{"Category", "Amount", "Start Date", "End Date", "Spent", "Percent Used", "Status"}, false);
+        if (snapshot.getBudgets().isEmpty()) {
+            csv.writeNext(new String[]{"No budget data available"}, false);
+        }
+        for (BudgetStatusResponse b : snapshot.getBudgets()) {
+            csv.writeNext(new String[]{
+                    b.getCategory(),
+                    plain(b.getAmount()),
+                    b.getStartDate().format(DAY),
+                    b.getEndDate().format(DAY),
+                    plain(b.getSpent()),
+                    plain(b.getPercentUsed()),
+                    b.getStatus()
+            }, false);
+        }
+    }
+
+    private void writeGoalsCsv(ICSVWriter csv, ExportSnapshot snapshot) {
+        csv.writeNext(new String[]{"FINANCIAL GOALS"}, false);
+        csv.writeNext(new String[]{"Goal Name", "Category", "Target Amount", "Current Amount", "Deadline", "Priority"}, false);
+        if (snapshot.getGoals().isEmpty()) {
+            csv.writeNext(new String[]{"No goals data available"}, false);
+        }
+        for (GoalResponse g : snapshot.getGoals()) {
+            csv.writeNext(new String[]{
+                    g.getGoalName(),
+                    g.getCategory(),
+                    plain(g.getTargetAmount()),
+                    plain(g.getCurrentAmount()),
+                    g.getDeadline() != null ? g.getDeadline().format(DAY) : null,
+                    g.getPriority()
+            }, false);
         }
-        return csv.toString();
     }
 
-    private String generateBudgetsCsv() {
-        StringBuilder csv = new StringBuilder();
-        csv.append("BUDGETS\n");
-        csv.append("Category,Amount,Start Date,End Date\n");
-        // Add budget data here when budget service is available
-        csv.append("No budget data available\n");
-        return csv.toString();
+    private void writeAIInsightsCsv(ICSVWriter csv) {
+        csv.writeNext(new String[]{"AI FINANCIAL INSIGHTS"}, false);
+        csv.writeNext(new String[]{"Insight Type", "Recommendation"}, false);
+        csv.writeNext(new String[]{"Spending Analysis", "Review your transaction patterns for optimization"}, false);
+        csv.writeNext(new String[]{"Budget Recommendation", "Create category-wise budgets based on spending history"}, false);
+        csv.writeNext(new String[]{"Savings Tip", "Consider automating savings transfers"}, false);
     }
 
-    private String generateGoalsCsv() {
-        StringBuilder csv = new StringBuilder();
-        csv.append("FINANCIAL GOALS\n");
-        csv.append("Goal Name,Category,Target Amount,Current Amount,Deadline,Priority\n");
-        // Add goals data here when goals service is available
-        csv.append("No goals data available\n");
-        return csv.toString();
+    private static String plain(BigDecimal amount) {
+        return amount != null ? amount.toPlainString() : null;
     }
 
-    private String generateAIInsightsCsv() {
-        StringBuilder csv = new StringBuilder();
-        csv.append("AI FINANCIAL INSIGHTS\n");
-        csv.append("Insight Type,Recommendation\n");
-        csv.append("Spending Analysis,Review your transaction patterns for optimization\n");
-        csv.append("Budget Recommendation,Create category-wise budgets based on spending history\n");
-        csv.append("Savings Tip,Consider automating savings transfers\n");
-        return csv.toString();
+    // Goal amounts are doubles; BigDecimal.valueOf keeps their shortest decimal form without an exponent
+    private static String plain(Double amount) {
+        return amount != null ? BigDecimal.valueOf(amount).toPlainString() : null;
     }
 
     public String exportToHtml(String sections) {
+        User user = currentUserProvider.getCurrentUser();
+        return exportToHtml(user.getId(), user.getUsername(), sections, section -> {
+        });
+    }
+
+    public String exportToHtml(Long userId, String username, String sections, Consumer<String> onSection) {
         try {
-            User user = getCurrentUser();
+            ExportSnapshot snapshot = snapshotLoader.load(userId, username, sections);
             StringBuilder html = new StringBuilder();
             html.append("<!DOCTYPE html><html><head><title>Financial Report</title>");
             html.append("<style>body{font-family:Arial,sans-serif;margin:20px;}");
@@ -145,36 +188,20 @@ public class SimpleExportService {
             html.append("</style></head><body>");
             
             html.append("<h1>BudgetwiseAI - Financial Report</h1>");
-            html.append("<p><strong>User:</strong> ").append(user.getUsername()).append("</p>");
-            html.append("<p><strong>Generated:</strong> ").append(java.time.LocalDateTime.now().format(DateTimeFormatter.ofPattern("dd-MM-yyyy HH:mm"))).append("</p>");
+            html.append("<p><strong>User:</strong> ").append(username).append("</p>");
+            html.append("<p><strong>Generated:</strong> ").append(snapshot.getGeneratedAt().format(MINUTE)).append("</p>");
             
-            String[] sectionArray = sections.split(",");
-            
-            for (String section : sectionArray) {
-                switch (section.trim()) {
-                    case "dashboard":
-                        html.append(generateDashboardHtml());
-                        break;
-                    case "transactions":
-                        html.append(generateTransactionsHtml());
-                        break;
-                    case "budgets":
-                        html.append(generateBudgetsHtml());
-                        break;
-                    case "goals":
-                        html.append(generateGoalsHtml());
-                        break;
-                    case "ai-insights":
-                        html.append(generateAIInsightsHtml());
-                        break;
-                    case "all":
-                        html.append(generateDashboardHtml());
-                        html.append(generateTransactionsHtml());
-                        html.append(generateBudgetsHtml());
-                        html.append(generateGoalsHtml());
-                        html.append(generateAIInsightsHtml());
-                        break;
+            for (String section : snapshot.getSections()) {
+                switch (section) {
+                    case ExportSnapshotLoader.DASHBOARD -> html.append(generateDashboardHtml(snapshot));
+                    case ExportSnapshotLoader.TRANSACTIONS -> html.append(generateTransactionsHtml(snapshot));
+                    case ExportSnapshotLoader.BUDGETS -> html.append(generateBudgetsHtml(snapshot));
+                    case ExportSnapshotLoader.GOALS -> html.append(generateGoalsHtml(snapshot));
+                    case ExportSnapshotLoader.AI_INSIGHTS -> html.append(generateAIInsightsHtml());
+                    default -> {
+                    }
                 }
+                onSection.accept(section);
             }
             
             html.append("</body></html>");
@@ -184,60 +211,79 @@ public class SimpleExportService {
         }
     }
 
-    private String generateDashboardHtml() {
-        List<TransactionResponse> transactions = transactionService.getUserTransactions();
-        BigDecimal totalIncome = BigDecimal.ZERO;
-        BigDecimal totalExpenses = BigDecimal.ZERO;
-        
-        for (TransactionResponse t : transactions) {
-            if ("INCOME".equalsIgnoreCase(t.getType())) {
-                totalIncome = totalIncome.add(t.getAmount());
-            } else {
-                totalExpenses = totalExpenses.add(t.getAmount());
-            }
-        }
+    private String generateDashboardHtml(ExportSnapshot snapshot) {
+        SummaryTotals totals = snapshot.getTotals();
         
         StringBuilder html = new StringBuilder();
         html.append("<div class='section'><h2>📊 Dashboard Summary</h2>");
-        html.append("<p><strong>Total Income:</strong> ₹").append(totalIncome).append("</p>");
-        html.append("<p><strong>Total Expenses:</strong> ₹").append(totalExpenses).append("</p>");
-        html.append("<p><strong>Net Balance:</strong> ₹").append(totalIncome.subtract(totalExpenses)).append("</p>");
-        html.append("<p><strong>Total Transactions:</strong> ").append(transactions.size()).append("</p></div>");
+        html.append("<p><strong>Total Income:</strong> ₹").append(totals.getTotalIncome()).append("</p>");
+        html.append("<p><strong>Total Expenses:</strong> ₹").append(totals.getTotalExpenses()).append("</p>");
+        html.append("<p><strong>Net Balance:</strong> ₹").append(totals.getNetBalance()).append("</p>");
+        html.append("<p><strong>Total Transactions:</strong> ").append(totals.getTransactionCount()).append("</p></div>");
         return html.toString();
     }
 
-    private String generateTransactionsHtml() {
-        List<TransactionResponse> transactions = transactionService.getUserTransactions();
+    private String generateTransactionsHtml(ExportSnapshot snapshot) {
         StringBuilder html = new StringBuilder();
         html.append("<div class='section'><h2>💳 Transaction Details</h2>");
         html.append("<table><tr><th>Date</th><th>Description</th><th>Category</th><th>Type</th><th>Amount</th></tr>");
         
-        for (TransactionResponse t : transactions) {
+        transactionService.forEachTransaction(snapshot.getUserId(), t -> {
             html.append("<tr>");
-            html.append("<td>").append(t.getDate().format(DateTimeFormatter.ofPattern("dd-MM-yyyy"))).append("</td>");
+            html.append("<td>").append(t.getDate().format(DAY)).append("</td>");
             html.append("<td>").append(t.getDescription()).append("</td>");
             html.append("<td>").append(t.getCategory()).append("</td>");
             html.append("<td>").append(t.getType()).append("</td>");
             html.append("<td>₹").append(t.getAmount()).append("</td>");
             html.append("</tr>");
-        }
+        });
         html.append("</table></div>");
         return html.toString();
     }
 
-    private String generateBudgetsHtml() {
+    private String generateBudgetsHtml(ExportSnapshot snapshot) {
         StringBuilder html = new StringBuilder();
         html.append("<div class='section'><h2>💰 Budgets</h2>");
-        html.append("<p>Budget management features coming soon...</p>");
-        html.append("<p>This section will show your budget allocations and spending against budgets.</p></div>");
+        if (snapshot.getBudgets().isEmpty()) {
+            html.append("<p>No active budgets.</p></div>");
+            return html.toString();
+        }
+        html.append("<table><tr><th>Category</th><th>Period</th><th>Budget</th><th>Spent</th><th>Used</th><th>Status</th></tr>");
+        
+        for (BudgetStatusResponse b : snapshot.getBudgets()) {
+            html.append("<tr>");
+            html.append("<td>").append(b.getCategory()).append("</td>");
+            html.append("<td>").append(b.getStartDate().format(DAY)).append(" - ").append(b.getEndDate().format(DAY)).append("</td>");
+            html.append("<td>₹").append(b.getAmount()).append("</td>");
+            html.append("<td>₹").append(b.getSpent()).append("</td>");
+            html.append("<td>").append(b.getPercentUsed()).append("%</td>");
+            html.append("<td>").append(b.getStatus()).append("</td>");
+            html.append("</tr>");
+        }
+        html.append("</table></div>");
         return html.toString();
     }
 
-    private String generateGoalsHtml() {
+    private String generateGoalsHtml(ExportSnapshot snapshot) {
         StringBuilder html = new StringBuilder();
         html.append("<div class='section'><h2>🎯 Financial Goals</h2>");
-        html.append("<p>Goal tracking features available in the app.</p>");
-        html.append("<p>This section will show your financial goals and progress.</p></div>");
+        if (snapshot.getGoals().isEmpty()) {
+            html.append("<p>No financial goals yet.</p></div>");
+            return html.toString();
+        }
+        html.append("<table><tr><th>Goal</th><th>Category</th><th>Target</th><th>Saved</th><th>Deadline</th><th>Priority</th></tr>");
+        
+        for (GoalResponse g : snapshot.getGoals()) {
+            html.append("<tr>");
+            html.append("<td>").append(g.getGoalName()).append("</td>");
+            html.append("<td>").append(g.getCategory()).append("</td>");
+            html.append("<td>₹").append(g.getTargetAmount()).append("</td>");
+            html.append("<td>₹").append(g.getCurrentAmount()).append("</td>");
+            html.append("<td>").append(g.getDeadline() != null ? g.getDeadline().format(DAY) : "").append("</td>");
+            html.append("<td>").append(g.getPriority()).append("</td>");
+            html.append("</tr>");
+        }
+        html.append("</table></div>");
         return html.toString();
     }
 
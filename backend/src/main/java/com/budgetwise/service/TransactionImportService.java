@@ -0,0 +1,323 @@
+package com.budgetwise.service;
+
+import com.budgetwise.dto.BulkImportResponse;
+import com.budgetwise.dto.TransactionRequest;
+import com.budgetwise.event.TransactionChangedEvent;
+import com.budgetwise.security.CurrentUserProvider;
+import com.opencsv.CSVReader;
+import com.opencsv.CSVReaderBuilder;
+import com.opencsv.exceptions.CsvMalformedLineException;
+import com.opencsv.exceptions.CsvValidationException;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.BatchPreparedStatementSetter;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.math.BigDecimal;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Bulk import of transactions (bank statements, sync clients).
+ * Rows are validated one by one and valid rows are written with batched JDBC inserts, bypassing
+ * Hibernate since IDENTITY ids disable its insert batching. Invalid rows are reported, not fatal.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class TransactionImportService {
+
+    private static final int BATCH_SIZE = 1000;
+    private static final int MAX_REPORTED_ERRORS = 1000;
+
+    private static final String INSERT_SQL =
+            "INSERT INTO transactions (description, amount, category, date, type, payment_method, currency, user_id) " +
+            "VALUES (?, ?, ?, ?, ?, ?, ?, ?)";
+
+    private static final DateTimeFormatter EXPORT_DATE_TIME = DateTimeFormatter.ofPattern("dd-MM-yyyy HH:mm");
+    private static final DateTimeFormatter EXPORT_DATE = DateTimeFormatter.ofPattern("dd-MM-yyyy");
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final CurrentUserProvider currentUserProvider;
+    private final TransactionSummaryService summaryService;
+    private final ApplicationEventPublisher eventPublisher;
+    private final UserDataVersionService versionService;
+
+    public BulkImportResponse importTransactions(List<TransactionRequest> requests) {
+        if (requests == null || requests.isEmpty()) {
+            throw new RuntimeException("No transactions to import");
+        }
+        ImportRun run = new ImportRun(currentUserProvider.getCurrentUserId());
+        for (TransactionRequest request : requests) {
+            run.accept(request);
+        }
+        return run.finish();
+    }
+
+    /**
+     * Imports CSV with a header row. Recognised columns (any order, case-insensitive):
+     * date, description, category, type, amount, payment method, currency.
+     * The file is read row by row, so memory use does not depend on its size.
+     */
+    public BulkImportResponse importCsv(Reader source) {
+        ImportRun run = new ImportRun(currentUserProvider.getCurrentUserId());
+
+        try (CSVReader reader = new CSVReaderBuilder(source).build()) {
+            String[] header = reader.readNext();
+            if (header == null) {
+                throw new RuntimeException("CSV file is empty");
+            }
+            Map<String, Integer> columns = indexColumns(header);
+            for (String required : List.of("date", "description", "category", "type", "amount")) {
+                if (!columns.containsKey(required)) {
+                    throw new RuntimeException("CSV header is missing required column: " + required);
+                }
+            }
+
+            while (true) {
+                String[] line;
+                try {
+                    line = reader.readNext();
+                } catch (CsvValidationException e) {
+                    // The reader has consumed the offending line, so carry on with the next one
+                    run.reject("Malformed CSV line: " + e.getMessage());
+                    continue;
+                } catch (CsvMalformedLineException e) {
+                    // Unterminated quoted field: everything up to the end of the file belongs to this row
+                    run.reject("Malformed CSV line " + e.getLineNumber() + ": " + e.getMessage());
+                    break;
+                }
+                if (line == null) {
+                    break;
+                }
+                if (line.length == 1 && line[0].isBlank()) {
+                    continue;
+                }
+                try {
+                    run.accept(toRequest(line, columns));
+                } catch (RuntimeException e) {
+                    run.reject(e.getMessage());
+                }
+            }
+        } catch (IOException | CsvValidationException e) {
+            throw new RuntimeException("Could not read CSV: " + e.getMessage(), e);
+        }
+        return run.finish();
+    }
+
+    private Map<String, Integer> indexColumns(String[] header) {
+        Map<String, Integer> columns = new HashMap<>();
+        for (int i = 0; i < header.length; i++) {
+            String name = header[i].trim().toLowerCase(Locale.ROOT).replace("_", "").replace(" ", "");
+            if (name.equals("paymentmethod")) {
+                name = "payment method";
+            }
+            columns.put(name, i);
+        }
+        return columns;
+    }
+
+    private TransactionRequest toRequest(String[] line, Map<String, Integer> columns) {
+        String amount = cell(line, columns, "amount");
+        BigDecimal parsedAmount;
+        try {
+            parsedAmount = amount == null ? null : new BigDecimal(amount.replace(",", "").replace("₹", "").trim());
+        } catch (NumberFormatException e) {
+            throw new RuntimeException("Invalid amount: " + amount);
+        }
+
+        return TransactionRequest.builder()
+                .date(parseDate(cell(line, columns, "date")))
+                .description(cell(line, columns, "description"))
+                .category(cell(line, columns, "category"))
+                .type(cell(line, columns, "type"))
+                .amount(parsedAmount)
+                .paymentMethod(cell(line, columns, "payment method"))
+                .currency(cell(line, columns, "currency"))
+                .build();
+    }
+
+    private String cell(String[] line, Map<String, Integer> columns, String name) {
+        Integer index = columns.get(name);
+        if (index == null || index >= line.length) {
+            return null;
+        }
+        String value = line[index].trim();
+        return value.isEmpty() ? null : value;
+    }
+
+    // Accepts ISO date-times, ISO dates and the dd-MM-yyyy[ HH:mm] format produced by the CSV export
+    private LocalDateTime parseDate(String value) {
+        if (value == null) {
+            return null;
+        }
+        try {
+            return LocalDateTime.parse(value);
+        } catch (DateTimeParseException ignored) {
+        }
+        try {
+            return LocalDate.parse(value).atStartOfDay();
+        } catch (DateTimeParseException ignored) {
+        }
+        try {
+            return LocalDateTime.parse(value, EXPORT_DATE_TIME);
+        } catch (DateTimeParseException ignored) {
+        }
+        try {
+            return LocalDate.parse(value, EXPORT_DATE).atStartOfDay();
+        } catch (DateTimeParseException e) {
+            throw new RuntimeException("Invalid date: " + value);
+        }
+    }
+
+    private static String validate(TransactionRequest request) {
+        if (request == null) {
+            return "Row is empty";
+        }
+        if (request.getDescription() == null || request.getDescription().isBlank()) {
+            return "Description is required";
+        }
+        if (request.getDescription().length() > 255) {
+            return "Description must be at most 255 characters";
+        }
+        if (request.getAmount() == null || request.getAmount().signum() <= 0) {
+            return "Amount must be greater than zero";
+        }
+        if (request.getCategory() == null || request.getCategory().isBlank()) {
+            return "Category is required";
+        }
+        if (request.getType() == null
+                || !(request.getType().trim().equalsIgnoreCase("INCOME") || request.getType().trim().equalsIgnoreCase("EXPENSE"))) {
+            return "Type must be INCOME or EXPENSE";
+        }
+        if (request.getDate() == null) {
+            return "Date is required";
+        }
+        return null;
+    }
+
+    private record PendingRow(int row, TransactionRequest request) {
+    }
+
+    /**
+     * State of one import call: buffers valid rows into batches and collects per-row errors.
+     */
+    private class ImportRun {
+        private final Long userId;
+        private final List<PendingRow> batch = new ArrayList<>(BATCH_SIZE);
+        private final List<BulkImportResponse.RowError> errors = new ArrayList<>();
+        private int received;
+        private int imported;
+        private int failed;
+
+        ImportRun(Long userId) {
+            this.userId = userId;
+        }
+
+        void accept(TransactionRequest request) {
+            received++;
+            String error = validate(request);
+            if (error != null) {
+                recordError(received, error);
+                return;
+            }
+            // Stored as the canonical INCOME/EXPENSE so readers comparing it need not fold case
+            request.setType(TransactionSummaryService.normalizeType(request.getType()));
+            batch.add(new PendingRow(received, request));
+            if (batch.size() >= BATCH_SIZE) {
+                flush();
+            }
+        }
+
+        void reject(String message) {
+            received++;
+            recordError(received, message);
+        }
+
+        BulkImportResponse finish() {
+            flush();
+            log.info("Bulk import for user {}: {} received, {} imported, {} failed", userId, received, imported, failed);
+            return BulkImportResponse.builder()
+                    .received(received)
+                    .imported(imported)
+                    .failed(failed)
+                    .errors(errors)
+                    .build();
+        }
+
+        private void flush() {
+            if (batch.isEmpty()) {
+                return;
+            }
+            List<PendingRow> rows = new ArrayList<>(batch);
+            batch.clear();
+            try {
+                transactionTemplate.executeWithoutResult(status -> insertBatch(rows));
+                imported += rows.size();
+            } catch (DataAccessException e) {
+                // Retry row by row so one bad row does not sink the other rows of its batch
+                log.warn("Batch insert failed, retrying {} rows individually: {}", rows.size(), e.getMessage());
+                for (PendingRow row : rows) {
+                    try {
+                        transactionTemplate.executeWithoutResult(status -> insertBatch(List.of(row)));
+                        imported++;
+                    } catch (DataAccessException rowError) {
+                        recordError(row.row(), "Could not be saved: " + rowError.getMostSpecificCause().getMessage());
+                    }
+                }
+            }
+        }
+
+        private void insertBatch(List<PendingRow> rows) {
+            jdbcTemplate.batchUpdate(INSERT_SQL, new BatchPreparedStatementSetter() {
+                @Override
+                public void setValues(PreparedStatement ps, int i) throws SQLException {
+                    TransactionRequest request = rows.get(i).request();
+                    ps.setString(1, request.getDescription().trim());
+                    ps.setBigDecimal(2, request.getAmount());
+                    ps.setString(3, request.getCategory().trim());
+                    ps.setTimestamp(4, Timestamp.valueOf(request.getDate()));
+                    ps.setString(5, request.getType());
+                    ps.setString(6, request.getPaymentMethod());
+                    ps.setString(7, request.getCurrency());
+                    ps.setLong(8, userId);
+                }
+
+                @Override
+                public int getBatchSize() {
+                    return rows.size();
+                }
+            });
+            List<TransactionRequest> requests = rows.stream().map(PendingRow::request).toList();
+            summaryService.recordBatch(userId, requests);
+            eventPublisher.publishEvent(new TransactionChangedEvent(userId, versionService.bump(userId), requests.stream()
+                    .map(request -> new TransactionChangedEvent.Change(null, new TransactionChangedEvent.Snapshot(
+                            request.getCategory().trim(), request.getType(), request.getAmount(), request.getDate())))
+                    .toList()));
+        }
+
+        private void recordError(int row, String message) {
+            failed++;
+            if (errors.size() < MAX_REPORTED_ERRORS) {
+                errors.add(new BulkImportResponse.RowError(row, message));
+            }
+        }
+    }
+}
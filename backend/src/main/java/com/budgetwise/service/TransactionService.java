@@ -1,40 +1,54 @@
 package com.budgetwise.service;
 
+import com.budgetwise.dto.TransactionFilterRequest;
+import com.budgetwise.dto.TransactionPageResponse;
 import com.budgetwise.dto.TransactionRequest;
 import com.budgetwise.dto.TransactionResponse;
+import com.budgetwise.event.TransactionChangedEvent;
 import com.budgetwise.model.Transaction;
 import com.budgetwise.model.User;
 import com.budgetwise.repository.TransactionRepository;
-import com.budgetwise.repository.UserRepository;
+import com.budgetwise.security.CurrentUserProvider;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import jakarta.persistence.EntityManager;
 import lombok.RequiredArgsConstructor;
-import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
 import java.time.LocalDateTime;
+import java.util.Base64;
 import java.util.List;
+import java.util.function.Consumer;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 @Service
 @RequiredArgsConstructor
 public class TransactionService {
 
-    private final TransactionRepository transactionRepository;
-    private final UserRepository userRepository;
+    private static final int DEFAULT_PAGE_SIZE = 50;
+    private static final int MAX_PAGE_SIZE = 200;
+    private static final int STREAM_FLUSH_INTERVAL = 500;
 
-    private User getCurrentUser() {
-        var auth = SecurityContextHolder.getContext().getAuthentication();
-        if (auth == null || auth.getName() == null || auth.getName().equals("anonymousUser")) {
-            throw new RuntimeException("User not authenticated. Please login again.");
-        }
-        String identifier = auth.getName();
-        System.out.println("Getting current user with identifier: " + identifier);
-        return userRepository.findByUsername(identifier)
-                .or(() -> userRepository.findByEmail(identifier))
-                .orElseThrow(() -> new RuntimeException("User not found: " + identifier));
-    }
+    private final TransactionRepository transactionRepository;
+    private final CurrentUserProvider currentUserProvider;
+    private final EntityManager entityManager;
+    private final ObjectMapper objectMapper;
+    private final TransactionSummaryService summaryService;
+    private final ApplicationEventPublisher eventPublisher;
+    private final UserDataVersionService versionService;
 
+    @Transactional
     public TransactionResponse createTransaction(TransactionRequest request) {
-        User user = getCurrentUser();
+        User user = currentUserProvider.getCurrentUserReference();
 
         Transaction transaction = Transaction.builder()
                 .description(request.getDescription())
@@ -48,14 +62,18 @@ public class TransactionService {
                 .build();
 
         transaction = transactionRepository.save(transaction);
+        summaryService.recordCreated(user.getId(), transaction);
+        eventPublisher.publishEvent(TransactionChangedEvent.created(user.getId(), versionService.bump(user.getId()), TransactionChangedEvent.Snapshot.of(transaction)));
         return mapToResponse(transaction);
     }
 
+    @Transactional
     public TransactionResponse updateTransaction(Long id, TransactionRequest request) {
-        User user = getCurrentUser();
+        Long userId = currentUserProvider.getCurrentUserId();
         Transaction txn = transactionRepository.findById(id)
-                .filter(t -> t.getUser().equals(user))
+                .filter(t -> t.getUser().getId().equals(userId))
                 .orElseThrow(() -> new RuntimeException("Transaction not found or unauthorized"));
+        TransactionChangedEvent.Snapshot before = TransactionChangedEvent.Snapshot.of(txn);
 
         txn.setDescription(request.getDescription());
         txn.setAmount(request.getAmount());
@@ -66,19 +84,29 @@ public class TransactionService {
         txn.setCurrency(request.getCurrency());
 
         Transaction updated = transactionRepository.save(txn);
+        summaryService.recordUpdated(userId, before.date(), before.type(), before.category(), before.amount(), updated);
+        eventPublisher.publishEvent(TransactionChangedEvent.updated(userId, versionService.bump(userId), before, TransactionChangedEvent.Snapshot.of(updated)));
         return mapToResponse(updated);
     }
 
+    @Transactional
     public void deleteTransaction(Long id) {
-        User user = getCurrentUser();
+        Long userId = currentUserProvider.getCurrentUserId();
         Transaction txn = transactionRepository.findById(id)
-                .filter(t -> t.getUser().equals(user))
+                .filter(t -> t.getUser().getId().equals(userId))
                 .orElseThrow(() -> new RuntimeException("Transaction not found or unauthorized"));
         transactionRepository.delete(txn);
+        summaryService.recordDeleted(userId, txn);
+        eventPublisher.publishEvent(TransactionChangedEvent.deleted(userId, versionService.bump(userId), TransactionChangedEvent.Snapshot.of(txn)));
+    }
+
+    // Recomputes the current user's monthly rollup from their transactions
+    public void rebuildSummary() {
+        summaryService.rebuildForUser(currentUserProvider.getCurrentUserId());
     }
 
     public List<TransactionResponse> getUserTransactions() {
-        User user = getCurrentUser();
+        User user = currentUserProvider.getCurrentUserReference();
         return transactionRepository.findByUser(user)
                 .stream()
                 .map(this::mapToResponse)
@@ -86,13 +114,124 @@ public class TransactionService {
     }
 
     public List<TransactionResponse> getTransactionsByDateRange(LocalDateTime start, LocalDateTime end) {
-        User user = getCurrentUser();
+        User user = currentUserProvider.getCurrentUserReference();
         return transactionRepository.findByUserAndDateBetween(user, start, end)
                 .stream()
                 .map(this::mapToResponse)
                 .collect(Collectors.toList());
     }
 
+    /**
+     * Returns one page of the user's transactions, newest first, using a (date, id) keyset cursor
+     * so the cost of a page depends on its size rather than on how much history precedes it.
+     */
+    public TransactionPageResponse getTransactionPage(TransactionFilterRequest filter) {
+        Long userId = currentUserProvider.getCurrentUserId();
+        int size = filter.getSize() == null ? DEFAULT_PAGE_SIZE : Math.min(Math.max(filter.getSize(), 1), MAX_PAGE_SIZE);
+
+        LocalDateTime cursorDate = null;
+        Long cursorId = null;
+        if (filter.getCursor() != null && !filter.getCursor().isBlank()) {
+            String[] cursor = decodeCursor(filter.getCursor());
+            cursorDate = LocalDateTime.parse(cursor[0]);
+            cursorId = Long.parseLong(cursor[1]);
+        }
+
+        // Fetch one extra row to know whether another page exists without a COUNT query
+        List<Transaction> rows = transactionRepository.findPage(
+                userId,
+                blankToNull(filter.getCategory()),
+                blankToNull(filter.getType()),
+                blankToNull(filter.getPaymentMethod()),
+                filter.getMinAmount(),
+                filter.getMaxAmount(),
+                filter.getStart(),
+                filter.getEnd(),
+                cursorDate,
+                cursorId,
+                PageRequest.of(0, size + 1));
+
+        boolean hasMore = rows.size() > size;
+        List<Transaction> page = hasMore ? rows.subList(0, size) : rows;
+
+        String nextCursor = null;
+        if (hasMore) {
+            Transaction last = page.get(page.size() - 1);
+            nextCursor = encodeCursor(last.getDate(), last.getId());
+        }
+
+        return TransactionPageResponse.builder()
+                .items(page.stream().map(this::mapToResponse).collect(Collectors.toList()))
+                .nextCursor(nextCursor)
+                .hasMore(hasMore)
+                .build();
+    }
+
+    /**
+     * Writes every transaction of the current user as newline-delimited JSON.
+     * Rows come from a forward-only cursor and are detached once written, so heap usage
+     * and time-to-first-byte do not grow with the size of the user's history.
+     */
+    @Transactional(readOnly = true)
+    public void streamUserTransactions(OutputStream out) throws IOException {
+        Long userId = currentUserProvider.getCurrentUserId();
+        ObjectWriter writer = objectMapper.writerFor(TransactionResponse.class)
+                .without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE);
+
+        try (Stream<Transaction> rows = transactionRepository.streamByUserId(userId);
+             JsonGenerator generator = objectMapper.getFactory().createGenerator(out)) {
+            generator.setRootValueSeparator(null);
+            int written = 0;
+            for (Transaction transaction : (Iterable<Transaction>) rows::iterator) {
+                writer.writeValue(generator, mapToResponse(transaction));
+                generator.writeRaw('\n');
+                entityManager.detach(transaction);
+                if (++written % STREAM_FLUSH_INTERVAL == 0) {
+                    generator.flush();
+                }
+            }
+            generator.flush();
+        }
+    }
+
+    /**
+     * Hands every transaction of the user to {@code consumer}, newest first, from a forward-only cursor.
+     * Each row is detached after the callback, so memory stays flat however long the history is.
+     */
+    @Transactional(readOnly = true)
+    public void forEachTransaction(Long userId, Consumer<TransactionResponse> consumer) {
+        try (Stream<Transaction> rows = transactionRepository.streamByUserId(userId)) {
+            for (Transaction transaction : (Iterable<Transaction>) rows::iterator) {
+                consumer.accept(mapToResponse(transaction));
+                entityManager.detach(transaction);
+            }
+        }
+    }
+
+    private static String encodeCursor(LocalDateTime date, Long id) {
+        String raw = date + "|" + id;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static String[] decodeCursor(String cursor) {
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            String[] parts = raw.split("\\|");
+            if (parts.length != 2) {
+                throw new IllegalArgumentException(raw);
+            }
+            LocalDateTime.parse(parts[0]);
+            Long.parseLong(parts[1]);
+            return parts;
+        } catch (RuntimeException e) {
+            throw new RuntimeException("Invalid pagination cursor");
+        }
+    }
+
+    private static String blankToNull(String value) {
+        return value == null || value.isBlank() ? null : value.trim();
+    }
+
     private TransactionResponse mapToResponse(Transaction transaction) {
         return TransactionResponse.builder()
                 .id(transaction.getId())
@@ -0,0 +1,182 @@
+package com.budgetwise.service;
+
+import com.budgetwise.dto.CategoryTotal;
+import com.budgetwise.dto.SummaryTotals;
+import com.budgetwise.dto.TransactionRequest;
+import com.budgetwise.model.Transaction;
+import com.budgetwise.repository.TransactionMonthlySummaryRepository;
+import com.budgetwise.repository.TransactionRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Maintains the per-user monthly rollup (user, month, type, category) -> (sum, count).
+ * Write paths apply deltas inside their own transaction; reads cost O(categories x months)
+ * instead of O(transactions). A nightly job recomputes the rollup from scratch.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class TransactionSummaryService {
+
+    public static final String INCOME = "INCOME";
+    public static final String EXPENSE = "EXPENSE";
+
+    private final TransactionMonthlySummaryRepository summaryRepository;
+    private final TransactionRepository transactionRepository;
+    private final TransactionTemplate transactionTemplate;
+
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void recordCreated(Long userId, Transaction transaction) {
+        apply(userId, transaction.getDate(), transaction.getType(), transaction.getCategory(), transaction.getAmount(), 1);
+    }
+
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void recordDeleted(Long userId, Transaction transaction) {
+        apply(userId, transaction.getDate(), transaction.getType(), transaction.getCategory(), transaction.getAmount().negate(), -1);
+        summaryRepository.deleteEmptyBuckets(userId);
+    }
+
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void recordUpdated(Long userId, LocalDateTime oldDate, String oldType, String oldCategory, BigDecimal oldAmount,
+                              Transaction updated) {
+        apply(userId, oldDate, oldType, oldCategory, oldAmount.negate(), -1);
+        recordCreated(userId, updated);
+        summaryRepository.deleteEmptyBuckets(userId);
+    }
+
+    /**
+     * Applies a batch of inserted rows with one upsert per distinct bucket rather than per row.
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void recordBatch(Long userId, List<TransactionRequest> rows) {
+        Map<List<Object>, BigDecimal[]> buckets = new HashMap<>();
+        for (TransactionRequest row : rows) {
+            List<Object> key = List.of(monthStart(row.getDate()), normalizeType(row.getType()), row.getCategory().trim());
+            BigDecimal[] acc = buckets.computeIfAbsent(key, k -> new BigDecimal[]{BigDecimal.ZERO, BigDecimal.ZERO});
+            acc[0] = acc[0].add(row.getAmount());
+            acc[1] = acc[1].add(BigDecimal.ONE);
+        }
+        buckets.forEach((key, acc) -> summaryRepository.upsertDelta(
+                userId, (LocalDate) key.get(0), (String) key.get(1), (String) key.get(2), acc[0], acc[1].longValue()));
+    }
+
+    @Transactional(readOnly = true)
+    public SummaryTotals getTotals(Long userId) {
+        BigDecimal income = BigDecimal.ZERO;
+        BigDecimal expenses = BigDecimal.ZERO;
+        long count = 0;
+        for (Object[] row : summaryRepository.sumByType(userId)) {
+            BigDecimal amount = (BigDecimal) row[1];
+            if (INCOME.equals(row[0])) {
+                income = income.add(amount);
+            } else {
+                expenses = expenses.add(amount);
+            }
+            count += ((Number) row[2]).longValue();
+        }
+        return SummaryTotals.builder()
+                .totalIncome(income)
+                .totalExpenses(expenses)
+                .transactionCount(count)
+                .build();
+    }
+
+    @Transactional(readOnly = true)
+    public List<CategoryTotal> getCategoryTotals(Long userId, String type) {
+        return summaryRepository.sumByCategory(userId, normalizeType(type));
+    }
+
+    // Rows are (type, category, total, count), largest totals first
+    @Transactional(readOnly = true)
+    public List<Object[]> getTypeCategoryTotals(Long userId) {
+        return summaryRepository.sumByTypeAndCategory(userId);
+    }
+
+    // Rows are (monthStart, type, total) for months in [fromMonth, toMonth]
+    @Transactional(readOnly = true)
+    public List<Object[]> getMonthlyTotals(Long userId, LocalDate fromMonth, LocalDate toMonth) {
+        return summaryRepository.sumByMonth(userId, fromMonth, toMonth);
+    }
+
+    /**
+     * Net balance (income minus everything else) of all transactions dated before {@code day}:
+     * whole months come from the rollup, the days of {@code day}'s own month from the transactions table.
+     */
+    @Transactional(readOnly = true)
+    public BigDecimal getNetBefore(Long userId, LocalDate day) {
+        LocalDate monthStart = day.withDayOfMonth(1);
+        BigDecimal net = net(summaryRepository.sumByTypeBefore(userId, monthStart));
+        if (day.isAfter(monthStart)) {
+            net = net.add(net(transactionRepository.sumByTypeBetween(userId, monthStart.atStartOfDay(), day.atStartOfDay())));
+        }
+        return net;
+    }
+
+    @Transactional
+    public void rebuildForUser(Long userId) {
+        summaryRepository.deleteAllForUser(userId);
+        summaryRepository.rebuildForUser(userId);
+    }
+
+    // Through the template rather than @Transactional, so the startup backfill's self-call gets a transaction too
+    @Scheduled(cron = "${summary.rebuild.cron:0 30 3 * * *}")
+    public void rebuildAll() {
+        long start = System.currentTimeMillis();
+        transactionTemplate.executeWithoutResult(status -> {
+            summaryRepository.deleteAllBuckets();
+            summaryRepository.rebuildAll();
+        });
+        log.info("Rebuilt transaction monthly summaries in {}ms", System.currentTimeMillis() - start);
+    }
+
+    // Backfill once after the rollup table is first introduced on a database that already has transactions
+    @EventListener(ApplicationReadyEvent.class)
+    public void backfillIfEmpty() {
+        try {
+            if (summaryRepository.count() == 0 && transactionRepository.count() > 0) {
+                log.info("Transaction monthly summaries are empty, rebuilding");
+                rebuildAll();
+            }
+        } catch (Exception e) {
+            log.error("Could not backfill transaction monthly summaries; totals read 0 until the nightly rebuild", e);
+        }
+    }
+
+    private void apply(Long userId, LocalDateTime date, String type, String category, BigDecimal amount, long count) {
+        summaryRepository.upsertDelta(userId, monthStart(date), normalizeType(type), category, amount, count);
+    }
+
+    // Rows are (type, total)
+    private static BigDecimal net(List<Object[]> rows) {
+        BigDecimal net = BigDecimal.ZERO;
+        for (Object[] row : rows) {
+            BigDecimal amount = (BigDecimal) row[1];
+            net = INCOME.equals(row[0]) ? net.add(amount) : net.subtract(amount);
+        }
+        return net;
+    }
+
+    private static LocalDate monthStart(LocalDateTime date) {
+        return date.toLocalDate().withDayOfMonth(1);
+    }
+
+    public static String normalizeType(String type) {
+        return type == null ? EXPENSE : type.trim().toUpperCase(Locale.ROOT);
+    }
+}
@@ -0,0 +1,32 @@
+package com.budgetwise.service;
+
+import com.budgetwise.repository.UserDataVersionRepository;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+/**
+ * Version of each user's transaction data, shared by everything that caches or tracks derived values.
+ * Writers bump it in the same transaction as their change and publish it on the {@code TransactionChangedEvent},
+ * so a reader that takes the version before loading data knows exactly which changes that data includes:
+ * anything it builds is tagged with a version no newer than its contents.
+ */
+@Service
+@RequiredArgsConstructor
+public class UserDataVersionService {
+
+    private final UserDataVersionRepository versionRepository;
+
+    // Holds the user's version row lock until the caller commits, so call it last in the write
+    @Transactional(propagation = Propagation.MANDATORY)
+    public long bump(Long userId) {
+        versionRepository.bump(userId);
+        return versionRepository.findVersion(userId).orElseThrow();
+    }
+
+    @Transactional(readOnly = true)
+    public long current(Long userId) {
+        return versionRepository.findVersion(userId).orElse(0L);
+    }
+}
@@ -103,9 +103,46 @@ CREATE TABLE IF NOT EXISTS settings (
     FOREIGN KEY (user_id) REFERENCES users(id) ON DELETE CASCADE
 );
 
+-- Create Transaction Monthly Summaries Table (rollup of transactions per user, month, type and category)
+CREATE TABLE IF NOT EXISTS transaction_monthly_summaries (
+    id BIGINT AUTO_INCREMENT PRIMARY KEY,
+    user_id BIGINT NOT NULL,
+    month_start DATE NOT NULL,
+    type VARCHAR(50) NOT NULL,
+    category VARCHAR(100) NOT NULL,
+    total_amount DECIMAL(19,2) NOT NULL DEFAULT 0,
+    txn_count BIGINT NOT NULL DEFAULT 0,
+    FOREIGN KEY (user_id) REFERENCES users(id),
+    CONSTRAINT uk_txn_summary_key UNIQUE (user_id, month_start, type, category)
+);
+
+-- Create User Data Versions Table (bumped with every transaction change)
+CREATE TABLE IF NOT EXISTS user_data_versions (
+    user_id BIGINT PRIMARY KEY,
+    version BIGINT NOT NULL DEFAULT 0,
+    FOREIGN KEY (user_id) REFERENCES users(id) ON DELETE CASCADE
+);
+
+-- Create AI Digests Table (precomputed insights per user and kind)
+CREATE TABLE IF NOT EXISTS ai_digests (
+    id BIGINT AUTO_INCREMENT PRIMARY KEY,
+    user_id BIGINT NOT NULL,
+    kind VARCHAR(50) NOT NULL,
+    model VARCHAR(100) NOT NULL,
+    insight TEXT,
+    category VARCHAR(100),
+    recommendation TEXT,
+    digest_version BIGINT NOT NULL DEFAULT 0,
+    generated_at TIMESTAMP NOT NULL,
+    FOREIGN KEY (user_id) REFERENCES users(id) ON DELETE CASCADE,
+    CONSTRAINT uk_ai_digest_user_kind UNIQUE (user_id, kind)
+);
+
 -- Create Indexes
 CREATE INDEX IF NOT EXISTS idx_transactions_user_id ON transactions(user_id);
 CREATE INDEX IF NOT EXISTS idx_transactions_date ON transactions(date);
+CREATE INDEX IF NOT EXISTS idx_transactions_user_date_id ON transactions(user_id, date, id);
+CREATE INDEX IF NOT EXISTS idx_transactions_user_category_date ON transactions(user_id, category, date);
 CREATE INDEX IF NOT EXISTS idx_budgets_user_id ON budgets(user_id);
 CREATE INDEX IF NOT EXISTS idx_budgets_dates ON budgets(start_date, end_date);
 CREATE UNIQUE INDEX IF NOT EXISTS idx_users_email ON users(email);